@@ -35,6 +35,7 @@ import io.vertx.ext.web.handler.JWTAuthHandler;
 import io.vertx.ext.web.handler.OAuth2AuthHandler;
 import io.vertx.ext.web.handler.RedirectAuthHandler;
 import io.vertx.ext.web.handler.ResponseContentTypeHandler;
+import io.vertx.ext.web.handler.RouterMetricsHandler;
 import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.handler.StaticHandler;
 import io.vertx.ext.web.handler.TemplateHandler;
@@ -1320,5 +1321,55 @@ public class WebExamples {
     });
   }
 
-}
+  public void freeze(Vertx vertx) {
+    Router router = Router.router(vertx);
+    router.route("/some/path/").handler(routingContext -> {
+      routingContext.response().end();
+    });
+
+    // no more changes to the routes
+    router.freeze();
+
+    vertx.createHttpServer().requestHandler(router::accept).listen(8080);
+  }
 
+  public void matchCache(Vertx vertx, Router router) {
+    // remember the routes selected for up to 1000 method and path pairs
+    router.matchCache(1000);
+
+    vertx.setPeriodic(60000, t -> {
+      JsonObject stats = router.matchCacheStats();
+      System.out.println("Match cache hits: " + stats.getLong("hits") + ", misses: " + stats.getLong("misses"));
+    });
+  }
+
+  public void routerMetrics(Router router) {
+    router.metrics(true);
+
+    // protect it as you would any administration endpoint
+    router.get("/admin/metrics").handler(RouterMetricsHandler.create(router));
+  }
+
+  public void contextPooling(Router router) {
+    router.contextPooling(true);
+
+    router.get("/some/path").handler(routingContext -> {
+      routingContext.put("foo", "bar");
+      routingContext.response().end("done");
+      // the context can be recycled from here, it must not be used anymore
+    });
+  }
+
+  public void staticContentCache(Router router) {
+    // keep up to 256MB of files no larger than 128KB in memory
+    router.route("/static/*").handler(StaticHandler.create()
+      .setContentCacheMaxBytes(256 * 1024 * 1024)
+      .setContentCacheMaxFileSize(128 * 1024));
+  }
+
+  public void staticPrecompressed(Router router) {
+    // app.js is sent as app.js.br or app.js.gz when they exist and the client accepts them
+    router.route("/static/*").handler(StaticHandler.create().setServePrecompressed(true));
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.vertx.ext.web;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A typed key for the data of a {@link RoutingContext}.
+ * <p>
+ * Each key is given a small slot number when it is created, so the routing context can keep the value in an array
+ * instead of a map. The key also has a name, so its value can be read under that name with
+ * {@link RoutingContext#get(String)} and is found in {@link RoutingContext#data()}.
+ * <p>
+ * Keys are created once and kept in constants. Creating a key with the name of an existing key returns the
+ * existing key. Keys are never freed, so they must not be created from names that come from requests.
+ *
+ * @param <T> the type of the value
+ */
+public final class ContextKey<T> {
+
+  private static final ConcurrentMap<String, ContextKey<?>> keys = new ConcurrentHashMap<>();
+  // copied when a key is created, which only happens a few times
+  private static volatile ContextKey<?>[] bySlot = new ContextKey<?>[0];
+
+  /**
+   * Create a key, or get the key already created with the name.
+   *
+   * @param name  the name of the key
+   * @param <T>  the type of the value
+   * @return the key
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ContextKey<T> create(String name) {
+    Objects.requireNonNull(name, "name");
+    ContextKey<?> key = keys.get(name);
+    if (key == null) {
+      synchronized (keys) {
+        key = keys.get(name);
+        if (key == null) {
+          ContextKey<?>[] created = Arrays.copyOf(bySlot, bySlot.length + 1);
+          key = created[created.length - 1] = new ContextKey<>(name, created.length - 1);
+          bySlot = created;
+          keys.put(name, key);
+        }
+      }
+    }
+    return (ContextKey<T>) key;
+  }
+
+  /**
+   * @param slot  a slot number
+   * @return the key with the slot, or {@code null} if there is none
+   */
+  public static ContextKey<?> forSlot(int slot) {
+    ContextKey<?>[] created = bySlot;
+    return slot < created.length ? created[slot] : null;
+  }
+
+  private final String name;
+  private final int slot;
+
+  private ContextKey(String name, int slot) {
+    this.name = name;
+    this.slot = slot;
+  }
+
+  /**
+   * @return the name of the key
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * @return the slot of the value in the data of a routing context, slots are numbered from 0 in creation order
+   */
+  public int slot() {
+    return slot;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -17,7 +17,7 @@ import io.vertx.codegen.annotations.VertxGen;
  * <li>Accept-Language -> Parameters and sortable</li>
  * <li>Content-Type -> MIME header and parameters</li>
  * </ul>
- *
+ * The lists returned are unmodifiable, they can be shared by the requests sending the same header.
  */
 @VertxGen
 public interface ParsedHeaderValues {
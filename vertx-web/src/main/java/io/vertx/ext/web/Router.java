@@ -17,12 +17,14 @@
 package io.vertx.ext.web;
 
 import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.impl.RouterImpl;
 
 import java.util.List;
@@ -360,6 +362,83 @@ public interface Router {
   @Fluent
   Router exceptionHandler(@Nullable Handler<Throwable> exceptionHandler);
 
+  /**
+   * Freeze the routes of this router and of the routers mounted in it.
+   * <p>
+   * The routes are validated and compiled right away, so errors are reported and the cost is paid when the
+   * application starts instead of on the first requests. Once frozen any attempt to change the routes throws an
+   * {@link IllegalStateException}. The compiled routes are logged at debug level.
+   *
+   * @return a reference to this, so the API can be used fluently
+   * @throws IllegalStateException if a router is mounted in itself or on a path that is not constant
+   */
+  @Fluent
+  Router freeze();
+
+  /**
+   * Enable caching of the routes selected for a request method and normalised path. Requests for the same method and
+   * path then skip looking up the routes and matching their paths, the other conditions of the routes (content type,
+   * pattern parameters...) are still checked for each request. The cache is invalidated when the routes change.
+   * <p>
+   * This is worth enabling when most requests go to a bounded set of paths.
+   *
+   * @param maxSize  the maximum number of cached entries, {@code 0} disables the cache
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  Router matchCache(int maxSize);
+
+  /**
+   * @return the statistics of the match cache: {@code size}, {@code maxSize}, {@code hits}, {@code misses} and
+   * {@code evictions}, or {@code null} if the cache is not enabled
+   */
+  @Nullable
+  JsonObject matchCacheStats();
+
+  /**
+   * Enable or disable recording metrics about the routes of this router: for each route the number of invocations,
+   * the time spent in its handler, the number of failures and how many times the route was checked without matching,
+   * and for the router the time spent matching routes.
+   * <p>
+   * Metrics are disabled by default, enabling them again starts from scratch.
+   *
+   * @param enabled  whether to record metrics
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  Router metrics(boolean enabled);
+
+  /**
+   * Report the metrics of the routes of this router to the given implementation.
+   *
+   * @param metrics  the metrics, {@code null} disables them
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  @GenIgnore
+  Router metrics(@Nullable RouterMetrics metrics);
+
+  /**
+   * @return the metrics recorded so far, or {@code null} if metrics are not enabled. See
+   * {@link io.vertx.ext.web.handler.RouterMetricsHandler} to expose them over HTTP.
+   */
+  @Nullable
+  JsonObject metricsSnapshot();
+
+  /**
+   * Enable or disable recycling the routing contexts of the requests this router accepts. A context is put back in a
+   * pool of its event loop once its response and its request have ended, and is reset before it routes another
+   * request.
+   * <p>
+   * Pooling is disabled by default: it is only safe when no handler keeps using the context, its request or its data
+   * after the response has ended.
+   *
+   * @param enabled  whether to pool the routing contexts
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  Router contextPooling(boolean enabled);
+
   /**
    * Used to route a context to the router. Used for sub-routers. You wouldn't normally call this method directly.
    *
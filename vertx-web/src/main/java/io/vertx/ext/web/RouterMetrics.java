@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Receives the measurements of the routing of a router, see {@link Router#metrics(RouterMetrics)}.
+ * <p>
+ * The methods are called from the event loops routing the requests, possibly concurrently, and must not block. Each
+ * router reports the routes it owns, routes of a sub-router are reported to the metrics of the sub-router.
+ */
+public interface RouterMetrics {
+
+  /**
+   * Called when a route was checked against a request and did not match it. The routes the router can tell apart
+   * without checking them, by their path or method, are not reported.
+   *
+   * @param route  the route
+   */
+  void routeNotMatched(Route route);
+
+  /**
+   * Called when the handler or the failure handler of a route returns.
+   *
+   * @param route  the route
+   * @param nanos  the time spent in the handler, including the routes it synchronously passes the request to by
+   *               calling {@link RoutingContext#next()}. Work the handler completes asynchronously is not included
+   */
+  void routeHandled(Route route, long nanos);
+
+  /**
+   * Called when the routing context is failed while the route is the current route, this includes the handler of the
+   * route throwing an exception.
+   *
+   * @param route  the route
+   */
+  void routeFailed(Route route);
+
+  /**
+   * Called each time the router looked for the next route to handle a request.
+   *
+   * @param nanos  the time spent selecting and matching routes
+   */
+  void routesMatched(long nanos);
+
+  /**
+   * @return the current measurements, or {@code null} if this implementation doesn't provide any
+   */
+  JsonObject snapshot();
+
+}
@@ -129,7 +129,45 @@ public interface RoutingContext {
   <T> T remove(String key);
 
   /**
-   * @return all the context data as a map
+   * Put some data in the context under a typed key. The data is also available under the name of the key.
+   *
+   * @param key  the key for the data
+   * @param value  the data
+   * @param <T>  the type of the data
+   * @return a reference to this, so the API can be used fluently
+   */
+  @GenIgnore
+  @Fluent
+  default <T> RoutingContext put(ContextKey<T> key, T value) {
+    return put(key.name(), value);
+  }
+
+  /**
+   * Get some data from the context by its typed key.
+   *
+   * @param key  the key for the data
+   * @param <T>  the type of the data
+   * @return  the data
+   */
+  @GenIgnore
+  default <T> T get(ContextKey<T> key) {
+    return get(key.name());
+  }
+
+  /**
+   * Remove some data from the context by its typed key.
+   *
+   * @param key  the key for the data
+   * @param <T>  the type of the data
+   * @return  the previous data associated with the key
+   */
+  @GenIgnore
+  default <T> T remove(ContextKey<T> key) {
+    return remove(key.name());
+  }
+
+  /**
+   * @return all the context data as a map, including the data put under typed keys
    */
   @GenIgnore
   Map<String, Object> data();
@@ -210,7 +248,8 @@ public interface RoutingContext {
 
   /**
    * @return  the entire HTTP request body as a string, assuming UTF-8 encoding. The context must have first been routed to a
-   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated.
+   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated. The body is decoded once, until
+   * {@link #setBody} is called.
    */
   @Nullable String getBodyAsString();
 
@@ -225,13 +264,15 @@ public interface RoutingContext {
 
   /**
    * @return Get the entire HTTP request body as a {@link JsonObject}. The context must have first been routed to a
-   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated.
+   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated. The body is decoded once, the same object
+   * is returned to all the handlers until {@link #setBody} is called.
    */
   @Nullable JsonObject getBodyAsJson();
 
   /**
    * @return Get the entire HTTP request body as a {@link JsonArray}. The context must have first been routed to a
-   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated.
+   * {@link io.vertx.ext.web.handler.BodyHandler} for this to be populated. The body is decoded once, the same array
+   * is returned to all the handlers until {@link #setBody} is called.
    */
   @Nullable JsonArray getBodyAsJsonArray();
 
@@ -350,6 +391,7 @@ public interface RoutingContext {
 
   /**
    * Set the body. Used by the {@link io.vertx.ext.web.handler.BodyHandler}. You will not normally call this method.
+   * The values decoded from the previous body are forgotten.
    *
    * @param body  the body
    */
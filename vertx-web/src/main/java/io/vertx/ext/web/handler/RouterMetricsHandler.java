@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.RouterMetricsHandlerImpl;
+
+/**
+ * Handler which responds with the metrics of a router as JSON, see {@link Router#metrics(boolean)}.
+ * <p>
+ * An empty JSON object is sent when the metrics of the router are not enabled.
+ */
+@VertxGen
+public interface RouterMetricsHandler extends Handler<RoutingContext> {
+
+  /**
+   * Create a handler
+   *
+   * @param router  the router to report the metrics of
+   * @return the handler
+   */
+  static RouterMetricsHandler create(Router router) {
+    return new RouterMetricsHandlerImpl(router);
+  }
+
+}
@@ -18,8 +18,10 @@ package io.vertx.ext.web.handler;
 
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.Nullable;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.impl.StaticHandlerImpl;
 
@@ -112,6 +114,41 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   boolean DEFAULT_SEND_VARY_HEADER = true;
 
+  /**
+   * Default max number of bytes of file content cached in memory, the content cache is disabled by default
+   */
+  long DEFAULT_CONTENT_CACHE_MAX_BYTES = 0;
+
+  /**
+   * Default max size of the files whose content is cached in memory
+   */
+  long DEFAULT_CONTENT_CACHE_MAX_FILE_SIZE = 64 * 1024; // 64KB
+
+  /**
+   * Default of whether the cached file content is held off-heap
+   */
+  boolean DEFAULT_CONTENT_CACHE_OFF_HEAP = false;
+
+  /**
+   * Default of whether the files are watched for changes
+   */
+  boolean DEFAULT_WATCH_FILES = false;
+
+  /**
+   * Default of whether ETag headers are sent
+   */
+  boolean DEFAULT_ETAG_ENABLED = false;
+
+  /**
+   * Default of whether the ETags are strong ones computed from the file content
+   */
+  boolean DEFAULT_STRONG_ETAG = false;
+
+  /**
+   * Default of whether precompressed variants of the files are served
+   */
+  boolean DEFAULT_SERVE_PRECOMPRESSED = false;
+
   /**
    * Create a handler using defaults
    *
@@ -295,4 +332,85 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   @Fluent
   StaticHandler setDefaultContentEncoding(String contentEncoding);
+
+  /**
+   * Set the max number of bytes of file content cached in memory. Files no larger than the max file size of the
+   * content cache are then served from memory, the least recently served files are evicted when the cache is full.
+   * Cached content is checked against the size and modification time of the file whenever the file properties are
+   * read again, see {@link #setFilesReadOnly(boolean)} and {@link #setCacheEntryTimeout(long)}.
+   *
+   * @param maxBytes the max number of bytes, {@code 0} disables the content cache
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setContentCacheMaxBytes(long maxBytes);
+
+  /**
+   * Set the max size of the files whose content is cached in memory, when the content cache is enabled
+   *
+   * @param maxFileSize the max file size, in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setContentCacheMaxFileSize(long maxFileSize);
+
+  /**
+   * Set whether the cached file content is held in direct buffers, outside of the Java heap
+   *
+   * @param offHeap true to hold the content off-heap
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setContentCacheOffHeap(boolean offHeap);
+
+  /**
+   * Set whether an ETag header is sent along with the other cache headers, when cache header handling is enabled.
+   * Requests with a matching `If-None-Match` header are answered with a 304 and requests with an `If-Range` header
+   * only get the range if the file did not change.
+   *
+   * @param enableETag true to send ETags
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setEnableETag(boolean enableETag);
+
+  /**
+   * Set whether the ETags are strong ones, computed from a hash of the file content, or weak ones derived from the
+   * file size and last modified time. The content is hashed on a worker thread the first time the file is served and
+   * the hash is cached with the file properties. Precompressed variants are hashed from their own content.
+   *
+   * @param strongETag true for strong ETags
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setStrongETag(boolean strongETag);
+
+  /**
+   * Set whether precompressed variants of the files are served. When a file has a sibling with a {@code .br} or
+   * {@code .gz} extension and the client accepts that encoding, the sibling is sent as is with the matching
+   * `Content-Encoding` header. The siblings are looked up along with the file properties and cached with them.
+   *
+   * @param servePrecompressed true to serve precompressed variants
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setServePrecompressed(boolean servePrecompressed);
+
+  /**
+   * Set whether the files are watched for changes. When they are, cache entries do not expire: they are dropped as
+   * soon as the file changes. The web root is watched with a {@link java.nio.file.WatchService} when it is a directory
+   * on the file system, otherwise the cached files are checked in the background every cache entry timeout.
+   *
+   * @param watchFiles true to watch the files
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setWatchFiles(boolean watchFiles);
+
+  /**
+   * @return the statistics of the content cache: {@code size}, {@code bytes}, {@code maxBytes}, {@code maxFileSize},
+   * {@code hits}, {@code misses} and {@code evictions}, or {@code null} if the content cache is not enabled
+   */
+  @Nullable
+  JsonObject contentCacheStats();
 }
@@ -26,6 +26,7 @@ import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.impl.FileUploadImpl;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.FileUpload;
+import io.vertx.ext.web.ContextKey;
 import io.vertx.ext.web.RoutingContext;
 
 import java.io.File;
@@ -41,7 +42,7 @@ public class BodyHandlerImpl implements BodyHandler {
 
   private static final Logger log = LoggerFactory.getLogger(BodyHandlerImpl.class);
 
-  private static final String BODY_HANDLED = "__body-handled";
+  private static final ContextKey<Boolean> BODY_HANDLED = ContextKey.create("__body-handled");
 
   private long bodyLimit = DEFAULT_BODY_LIMIT;
   private String uploadsDir;
@@ -112,7 +112,12 @@ public class ErrorHandlerImpl implements ErrorHandler {
   
   private boolean sendErrorAcceptMIME(RoutingContext context, int errorCode, String errorMessage){
     // respect the client accept order
-    List<MIMEHeader> acceptableMimes = context.parsedHeaders().accept();
+    List<MIMEHeader> acceptableMimes;
+    try {
+      acceptableMimes = context.parsedHeaders().accept();
+    } catch (HeaderTooLongException e) {
+      return false;
+    }
 
     for (MIMEHeader accept : acceptableMimes) {
       if (sendError(context, accept.value(), errorCode, errorMessage)) {
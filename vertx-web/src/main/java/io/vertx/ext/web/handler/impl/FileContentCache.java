@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.FileProps;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The contents of small static files kept in memory, bounded by the total number of bytes held.
+ * <p>
+ * The cache can be used from many threads without locking, like {@link io.vertx.ext.web.impl.ConcurrentBoundedCache}:
+ * when the content put exceeds the budget entries are evicted in insertion order, except that entries read since they
+ * were last looked at by the eviction get a second chance (CLOCK). Reads never reorder anything. Each entry records
+ * the size and modification time of the file it was read from, so it is only served while those still match the
+ * properties of the file.
+ */
+final class FileContentCache {
+
+  private final long maxBytes;
+  private final long maxFileSize;
+  private final boolean offHeap;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  // the entries in eviction order, removed and replaced entries are only dropped when the eviction reaches them
+  private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger clockSize = new AtomicInteger();
+  private final AtomicLong bytes = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  FileContentCache(long maxBytes, long maxFileSize, boolean offHeap) {
+    this.maxBytes = maxBytes;
+    this.maxFileSize = Math.min(maxFileSize, maxBytes);
+    this.offHeap = offHeap;
+  }
+
+  /**
+   * @return whether the content of a file of this size can be cached
+   */
+  boolean accepts(long size) {
+    return size <= maxFileSize;
+  }
+
+  /**
+   * @return the cached content of the file if it was read from a file with these properties, otherwise {@code null}
+   */
+  Entry get(String file, FileProps props) {
+    Entry entry = entries.get(file);
+    if (entry != null && !entry.isFor(props)) {
+      // the file changed since it was read
+      remove(file, entry);
+      entry = null;
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    if (!entry.referenced) {
+      // only written when needed, hot entries are read from many threads
+      entry.referenced = true;
+    }
+    hits.increment();
+    return entry;
+  }
+
+  /**
+   * Cache the content read from a file, evicting the least recently used files to make room for it.
+   *
+   * @return the cached entry
+   */
+  Entry put(String file, FileProps props, Buffer content, String contentType, String lastModified) {
+    Entry entry = new Entry(file, copy(content), props.size(), props.lastModifiedTime(), contentType, lastModified);
+    Entry previous = entries.put(file, entry);
+    if (previous != null) {
+      bytes.addAndGet(-previous.size);
+    }
+    clock.offer(entry);
+    if (clockSize.incrementAndGet() > 2 * entries.size() + 16) {
+      purge();
+    }
+    if (bytes.addAndGet(entry.size) > maxBytes) {
+      evict(entry);
+    }
+    return entry;
+  }
+
+  void remove(String file) {
+    Entry entry = entries.get(file);
+    if (entry != null) {
+      remove(file, entry);
+    }
+  }
+
+  private void remove(String file, Entry entry) {
+    if (entries.remove(file, entry)) {
+      bytes.addAndGet(-entry.size);
+    }
+  }
+
+  void clear() {
+    // entries are dropped from the clock along with the map so that concurrent puts never leave an entry in the map
+    // the eviction can't see
+    Entry entry;
+    while ((entry = clock.poll()) != null) {
+      clockSize.decrementAndGet();
+      remove(entry.file, entry);
+    }
+  }
+
+  /**
+   * @return the counters as JSON: {@code size}, {@code bytes}, {@code maxBytes}, {@code maxFileSize}, {@code hits},
+   * {@code misses} and {@code evictions}
+   */
+  JsonObject stats() {
+    return new JsonObject()
+      .put("size", entries.size())
+      .put("bytes", bytes.get())
+      .put("maxBytes", maxBytes)
+      .put("maxFileSize", maxFileSize)
+      .put("hits", hits.sum())
+      .put("misses", misses.sum())
+      .put("evictions", evictions.sum());
+  }
+
+  /**
+   * Evict entries until the content held fits the budget again, the entry just added is kept.
+   */
+  private void evict(Entry added) {
+    // every entry gets at most one second chance, so this terminates even if all entries are read concurrently
+    int budget = 2 * clockSize.get() + 2;
+    while (bytes.get() > maxBytes && budget-- > 0) {
+      Entry entry = clock.poll();
+      if (entry == null) {
+        return;
+      }
+      clockSize.decrementAndGet();
+      if (entries.get(entry.file) != entry) {
+        // removed or replaced meanwhile
+        continue;
+      }
+      if (entry == added || entry.referenced) {
+        entry.referenced = false;
+        clock.offer(entry);
+        clockSize.incrementAndGet();
+      } else if (entries.remove(entry.file, entry)) {
+        bytes.addAndGet(-entry.size);
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Drop the removed and replaced entries from the clock, when they make up most of it.
+   */
+  private void purge() {
+    for (Iterator<Entry> it = clock.iterator(); it.hasNext(); ) {
+      Entry entry = it.next();
+      if (entries.get(entry.file) != entry) {
+        it.remove();
+        clockSize.decrementAndGet();
+      }
+    }
+  }
+
+  private Buffer copy(Buffer content) {
+    if (!offHeap) {
+      return content;
+    }
+    // direct buffers allocated by the JDK are freed by the garbage collector, so an evicted entry can still be
+    // written by the responses in flight
+    ByteBuffer direct = ByteBuffer.allocateDirect(content.length());
+    direct.put(content.getByteBuf().nioBuffer());
+    direct.flip();
+    return Buffer.buffer(Unpooled.wrappedBuffer(direct));
+  }
+
+  /**
+   * The content of a file along with the response headers that only depend on it.
+   */
+  static final class Entry {
+
+    private final String file;
+    private volatile boolean referenced;
+    final Buffer content;
+    final long size;
+    final long lastModifiedTime;
+    final String contentType;
+    final String lastModified;
+    final String contentLength;
+
+    private Entry(String file, Buffer content, long size, long lastModifiedTime, String contentType,
+                  String lastModified) {
+      this.file = file;
+      this.content = content;
+      this.size = size;
+      this.lastModifiedTime = lastModifiedTime;
+      this.contentType = contentType;
+      this.lastModified = lastModified;
+      this.contentLength = Long.toString(size);
+    }
+
+    boolean isFor(FileProps props) {
+      return props.size() == size && props.lastModifiedTime() == lastModifiedTime;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.RouterMetricsHandler;
+
+public class RouterMetricsHandlerImpl implements RouterMetricsHandler {
+
+  private final Router router;
+
+  public RouterMetricsHandlerImpl(Router router) {
+    this.router = router;
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    JsonObject snapshot = router.metricsSnapshot();
+    ctx.response()
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .end(snapshot == null ? "{}" : snapshot.encode());
+  }
+}
@@ -17,26 +17,37 @@
 package io.vertx.ext.web.handler.impl;
 
 import io.vertx.core.*;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.file.FileProps;
 import io.vertx.core.file.FileSystem;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.impl.MimeMapping;
+import io.vertx.core.impl.VertxInternal;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.web.ParsedHeaderValue;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.StaticHandler;
-import io.vertx.ext.web.impl.LRUCache;
+import io.vertx.ext.web.impl.ConcurrentBoundedCache;
 import io.vertx.ext.web.impl.Utils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.NoSuchFileException;
-import java.text.DateFormat;
-import java.text.ParseException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,8 +64,15 @@ public class StaticHandlerImpl implements StaticHandler {
 
   private static final Logger log = LoggerFactory.getLogger(StaticHandlerImpl.class);
 
-  private final DateFormat dateTimeFormatter = Utils.createRFC1123DateTimeFormatter();
-  private Map<String, CacheEntry> propsCache;
+  // how often the events of the watched web root are looked at, in ms
+  private static final long WATCH_POLL_INTERVAL = 50;
+
+  // the content encodings of the precompressed variants of files, in order of preference, and their file extensions
+  private static final String[] VARIANT_ENCODINGS = {"br", "gzip"};
+  private static final String[] VARIANT_EXTENSIONS = {".br", ".gz"};
+  private static final Variant[] NO_VARIANTS = new Variant[0];
+
+  private ConcurrentBoundedCache<String, CacheEntry> propsCache = new ConcurrentBoundedCache<>(DEFAULT_MAX_CACHE_SIZE);
   private String webRoot = DEFAULT_WEB_ROOT;
   private long maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS; // One day
   private boolean directoryListing = DEFAULT_DIRECTORY_LISTING;
@@ -65,21 +83,32 @@ public class StaticHandlerImpl implements StaticHandler {
   private boolean cachingEnabled = DEFAULT_CACHING_ENABLED;
   private long cacheEntryTimeout = DEFAULT_CACHE_ENTRY_TIMEOUT;
   private String indexPage = DEFAULT_INDEX_PAGE;
-  private int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
   private boolean rangeSupport = DEFAULT_RANGE_SUPPORT;
   private boolean allowRootFileSystemAccess = DEFAULT_ROOT_FILESYSTEM_ACCESS;
   private boolean sendVaryHeader = DEFAULT_SEND_VARY_HEADER;
   private String defaultContentEncoding = Charset.defaultCharset().name();
-
-  // These members are all related to auto tuning of synchronous vs asynchronous file system access
+  private long contentCacheMaxBytes = DEFAULT_CONTENT_CACHE_MAX_BYTES;
+  private long contentCacheMaxFileSize = DEFAULT_CONTENT_CACHE_MAX_FILE_SIZE;
+  private boolean contentCacheOffHeap = DEFAULT_CONTENT_CACHE_OFF_HEAP;
+  private FileContentCache contentCache;
+  private boolean watchFiles = DEFAULT_WATCH_FILES;
+  private boolean etagEnabled = DEFAULT_ETAG_ENABLED;
+  private boolean strongETag = DEFAULT_STRONG_ETAG;
+  private boolean servePrecompressed = DEFAULT_SERVE_PRECOMPRESSED;
+  private final AtomicBoolean watchStarted = new AtomicBoolean();
+  // counts the invalidations of cache entries, so entries read meanwhile from the file system can be left out
+  private final AtomicLong invalidations = new AtomicLong();
+
+  // These members are all related to auto tuning of synchronous vs asynchronous file system access, they are updated
+  // from all the event loops serving files so the counters are striped
   private static int NUM_SERVES_TUNING_FS_ACCESS = 1000;
   private boolean alwaysAsyncFS = DEFAULT_ALWAYS_ASYNC_FS;
   private long maxAvgServeTimeNanoSeconds = DEFAULT_MAX_AVG_SERVE_TIME_NS;
-  private boolean tuning = DEFAULT_ENABLE_FS_TUNING;
-  private long totalTime;
-  private long numServesBlocking;
-  private boolean useAsyncFS;
-  private long nextAvgCheck = NUM_SERVES_TUNING_FS_ACCESS;
+  private volatile boolean tuning = DEFAULT_ENABLE_FS_TUNING;
+  private final LongAdder totalTime = new LongAdder();
+  private final LongAdder numServesBlocking = new LongAdder();
+  private volatile boolean useAsyncFS;
+  private final AtomicLong nextAvgCheck = new AtomicLong(NUM_SERVES_TUNING_FS_ACCESS);
 
   private final ClassLoader classLoader;
 
@@ -103,17 +132,23 @@ public class StaticHandlerImpl implements StaticHandler {
    * Create all required header so content can be cache by Caching servers or Browsers
    *
    * @param request base HttpServerRequest
-   * @param props   file properties
+   * @param entry   file properties
+   * @param etag    the entity tag of the representation sent or {@code null}
+   * @param content the cached content of the file or {@code null}
    */
-  private void writeCacheHeaders(HttpServerRequest request, FileProps props) {
+  private void writeCacheHeaders(HttpServerRequest request, CacheEntry entry, String etag,
+                                 FileContentCache.Entry content) {
 
     MultiMap headers = request.response().headers();
 
     if (cachingEnabled) {
-      // We use cache-control and last-modified
-      // We *do not use* etags and expires (since they do the same thing - redundant)
+      // We use cache-control and last-modified, and etags when enabled
+      // We *do not use* expires (since it does the same thing as cache-control - redundant)
       headers.set("cache-control", "public, max-age=" + maxAgeSeconds);
-      headers.set("last-modified", dateTimeFormatter.format(props.lastModifiedTime()));
+      headers.set("last-modified", content != null ? content.lastModified : lastModified(entry.props));
+      if (etag != null) {
+        headers.set("etag", etag);
+      }
       // We send the vary header (for intermediate caches)
       // (assumes that most will turn on compression when using static handler)
       if (sendVaryHeader && request.headers().contains("accept-encoding")) {
@@ -122,7 +157,7 @@ public class StaticHandlerImpl implements StaticHandler {
     }
 
     // date header is mandatory
-    headers.set("date", dateTimeFormatter.format(new Date()));
+    headers.set("date", Utils.formatRFC1123DateTime(System.currentTimeMillis()));
   }
 
   @Override
@@ -145,6 +180,10 @@ public class StaticHandlerImpl implements StaticHandler {
         path = indexPage;
       }
 
+      if (watchFiles && !watchStarted.get() && watchStarted.compareAndSet(false, true)) {
+        startWatching(context.vertx());
+      }
+
       // can be called recursive for index pages
       sendStatic(context, path);
 
@@ -153,10 +192,10 @@ public class StaticHandlerImpl implements StaticHandler {
 
   private void sendStatic(RoutingContext context, String path) {
 
-    String file = null;
+    // the cache is keyed by file so it can be invalidated from file system events
+    String file = getFile(path, context);
 
     if (!includeHidden) {
-      file = getFile(path, context);
       int idx = file.lastIndexOf('/');
       String name = file.substring(idx + 1);
       if (name.length() > 0 && name.charAt(0) == '.') {
@@ -166,23 +205,19 @@ public class StaticHandlerImpl implements StaticHandler {
     }
 
     // Look in cache
-    CacheEntry entry;
+    CacheEntry entry = null;
     if (cachingEnabled) {
-      entry = propsCache().get(path);
-      if (entry != null) {
-        HttpServerRequest request = context.request();
-        if ((filesReadOnly || !entry.isOutOfDate()) && entry.shouldUseCached(request)) {
-          context.response().setStatusCode(NOT_MODIFIED.code()).end();
-          return;
-        }
+      entry = propsCache.get(file);
+      if (entry != null && (filesReadOnly || watchFiles || !entry.isOutOfDate(cacheEntryTimeout))) {
+        // the properties are trusted, the file is served without touching its properties on the file system
+        sendEntry(context, file, entry);
+        return;
       }
     }
 
-    if (file == null) {
-      file = getFile(path, context);
-    }
-
     String sfile = file;
+    CacheEntry previous = entry;
+    long invalidationsBefore = invalidations.get();
 
     // Need to read the props from the filesystem
     getFileProps(context, file, res -> {
@@ -194,8 +229,21 @@ public class StaticHandlerImpl implements StaticHandler {
         } else if (fprops.isDirectory()) {
           sendDirectory(context, path, sfile);
         } else {
-          propsCache().put(path, new CacheEntry(fprops, System.currentTimeMillis()));
-          sendFile(context, sfile, fprops);
+          CacheEntry fentry = new CacheEntry(fprops, System.currentTimeMillis(), etagEnabled && !strongETag);
+          if (fentry.etag == null && previous != null && previous.isFor(fprops)) {
+            // the file did not change, no need to hash it again
+            fentry.etag = previous.etag;
+          }
+          if (servePrecompressed) {
+            // the variants are looked up once, along with the file
+            findVariants(context, sfile, fentry, new ArrayList<>(VARIANT_ENCODINGS.length), 0, v -> {
+              cacheEntry(sfile, fentry, invalidationsBefore);
+              sendEntry(context, sfile, fentry);
+            });
+          } else {
+            cacheEntry(sfile, fentry, invalidationsBefore);
+            sendEntry(context, sfile, fentry);
+          }
         }
       } else {
         if (res.cause() instanceof NoSuchFileException || (res.cause().getCause() != null && res.cause().getCause() instanceof NoSuchFileException)) {
@@ -207,6 +255,157 @@ public class StaticHandlerImpl implements StaticHandler {
     });
   }
 
+  /**
+   * Cache the properties just read from the file system.
+   */
+  private void cacheEntry(String file, CacheEntry entry, long invalidationsBefore) {
+    if (!watchFiles || invalidations.get() == invalidationsBefore) {
+      // otherwise the file may have changed after it was read and the entry would be trusted until it changes again
+      propsCache.put(file, entry);
+    }
+  }
+
+  /**
+   * Send the file described by the entry, either just read from the file system or trusted from the cache. The
+   * content of small files is served from memory when cached, or read and cached otherwise.
+   */
+  private void sendEntry(RoutingContext context, String file, CacheEntry entry) {
+    Variant variant = negotiate(context, entry);
+    if (cachingEnabled && sendNotModified(context, entry, variant)) {
+      return;
+    }
+    FileContentCache contentCache = this.contentCache;
+    FileContentCache.Entry content = variant == null && contentCache != null &&
+      contentCache.accepts(entry.props.size()) ? contentCache.get(file, entry.props) : null;
+    if (cachingEnabled && etagEnabled && strongETag && entry.etag(variant) == null) {
+      // the hash of the content sent is computed once, then the entry is cached with it
+      computeStrongETag(context, variant == null ? file : variant.file, content, etag -> {
+        if (variant == null) {
+          entry.etag = etag;
+        } else {
+          variant.etag = etag;
+        }
+        if (!sendNotModified(context, entry, variant)) {
+          sendFile(context, file, entry, variant, content);
+        }
+      });
+    } else {
+      sendFile(context, file, entry, variant, content);
+    }
+  }
+
+  /**
+   * Answer a conditional request with 304 if its validators match the representation that would be sent.
+   *
+   * @return whether the response was sent
+   */
+  private boolean sendNotModified(RoutingContext context, CacheEntry entry, Variant variant) {
+    String etag = entry.etag(variant);
+    if (entry.shouldUseCached(context.request(), etag)) {
+      if (etag != null) {
+        context.response().putHeader("etag", etag);
+      }
+      if (entry.variants.length > 0) {
+        context.response().putHeader("vary", "accept-encoding");
+      }
+      context.response().setStatusCode(NOT_MODIFIED.code()).end();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Look up the precompressed siblings of a file, one after the other, and set the variants of its entry. Siblings
+   * older than the file are left out as they were not compressed from its current content.
+   */
+  private void findVariants(RoutingContext context, String file, CacheEntry entry, List<Variant> found, int i,
+                            Handler<Void> next) {
+    if (i == VARIANT_ENCODINGS.length) {
+      entry.variants = found.toArray(new Variant[found.size()]);
+      next.handle(null);
+      return;
+    }
+    String variantFile = file + VARIANT_EXTENSIONS[i];
+    getFileProps(context, variantFile, res -> {
+      FileProps props = res.succeeded() ? res.result() : null;
+      if (props != null && props.isRegularFile() && props.lastModifiedTime() >= entry.props.lastModifiedTime()) {
+        found.add(new Variant(VARIANT_ENCODINGS[i], variantFile, props));
+      }
+      findVariants(context, file, entry, found, i + 1, next);
+    });
+  }
+
+  /**
+   * @return the precompressed variant of the file the client accepts with the highest weight, preferring the
+   * encodings in the order of {@link #VARIANT_ENCODINGS} for the same weight, or {@code null} to send the file as is
+   */
+  private static Variant negotiate(RoutingContext context, CacheEntry entry) {
+    if (entry.variants.length == 0) {
+      return null;
+    }
+    List<ParsedHeaderValue> accepted = context.parsedHeaders().acceptEncoding();
+    Variant best = null;
+    float bestWeight = 0;
+    for (Variant variant : entry.variants) {
+      float weight = 0;
+      for (ParsedHeaderValue encoding : accepted) {
+        if (variant.encoding.equalsIgnoreCase(encoding.value())) {
+          weight = encoding.weight();
+          break;
+        } else if ("*".equals(encoding.value())) {
+          weight = encoding.weight();
+        }
+      }
+      if (weight > bestWeight) {
+        best = variant;
+        bestWeight = weight;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Hash the content of the file, or of the precompressed variant, on a worker thread and compute its strong entity
+   * tag.
+   */
+  private void computeStrongETag(RoutingContext context, String file, FileContentCache.Entry content,
+                                 Handler<String> next) {
+    Vertx vertx = context.vertx();
+    vertx.<String>executeBlocking(fut -> {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        fut.fail(e);
+        return;
+      }
+      if (content != null) {
+        digest.update(content.content.getByteBuf().nioBuffer());
+      } else {
+        File resolved = wrapInTCCLSwitch(() -> ((VertxInternal) vertx).resolveFile(file));
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(resolved)) {
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+          }
+        } catch (IOException e) {
+          fut.fail(e);
+          return;
+        }
+      }
+      fut.complete('"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + '"');
+    }, false, res -> {
+      if (res.succeeded()) {
+        next.handle(res.result());
+      } else if (res.cause() instanceof FileNotFoundException) {
+        context.fail(NOT_FOUND.code());
+      } else {
+        context.fail(res.cause());
+      }
+    });
+  }
+
   private void sendDirectory(RoutingContext context, String path, String file) {
     if (directoryListing) {
       sendDirectoryListing(file, context);
@@ -247,7 +446,7 @@ public class StaticHandlerImpl implements StaticHandler {
     }
   }
 
-  private synchronized void getFileProps(RoutingContext context, String file, Handler<AsyncResult<FileProps>> resultHandler) {
+  private void getFileProps(RoutingContext context, String file, Handler<AsyncResult<FileProps>> resultHandler) {
     FileSystem fs = context.vertx().fileSystem();
     if (alwaysAsyncFS || useAsyncFS) {
       wrapInTCCLSwitch(() -> fs.props(file, resultHandler));
@@ -263,19 +462,21 @@ public class StaticHandlerImpl implements StaticHandler {
         if (tuning) {
           long end = System.nanoTime();
           long dur = end - start;
-          totalTime += dur;
-          numServesBlocking++;
-          if (numServesBlocking == Long.MAX_VALUE) {
+          totalTime.add(dur);
+          numServesBlocking.increment();
+          long numServes = numServesBlocking.sum();
+          long check = nextAvgCheck.get();
+          if (numServes == Long.MAX_VALUE) {
             // Unlikely.. but...
             resetTuning();
-          } else if (numServesBlocking == nextAvgCheck) {
-            double avg = (double) totalTime / numServesBlocking;
+          } else if (numServes >= check && nextAvgCheck.compareAndSet(check, check + NUM_SERVES_TUNING_FS_ACCESS)) {
+            // only the thread moving the next check computes the average
+            double avg = (double) totalTime.sum() / numServes;
             if (avg > maxAvgServeTimeNanoSeconds) {
               useAsyncFS = true;
               log.info("Switching to async file system access in static file server as fs access is slow! (Average access time of " + avg + " ns)");
               tuning = false;
             }
-            nextAvgCheck += NUM_SERVES_TUNING_FS_ACCESS;
           }
         }
         resultHandler.handle(Future.succeededFuture(props));
@@ -287,15 +488,117 @@ public class StaticHandlerImpl implements StaticHandler {
 
   private void resetTuning() {
     // Reset
-    nextAvgCheck = NUM_SERVES_TUNING_FS_ACCESS;
-    totalTime = 0;
-    numServesBlocking = 0;
+    nextAvgCheck.set(NUM_SERVES_TUNING_FS_ACCESS);
+    totalTime.reset();
+    numServesBlocking.reset();
+  }
+
+  private void startWatching(Vertx vertx) {
+    Context context = vertx.getOrCreateContext();
+    WebRootWatcher watcher = WebRootWatcher.create(webRoot);
+    long timerId;
+    if (watcher != null) {
+      // new directories are walked to watch them, so the events are not looked at on the event loop
+      timerId = setPeriodicBlocking(vertx, WATCH_POLL_INTERVAL, () -> watcher.poll(this::invalidate));
+    } else {
+      // the web root cannot be watched, e.g. it is on the classpath, so check the cached files in the background
+      timerId = setPeriodicBlocking(vertx, cacheEntryTimeout, () -> checkCachedFiles(vertx.fileSystem()));
+    }
+    Closeable stop = completionHandler -> {
+      vertx.cancelTimer(timerId);
+      if (watcher != null) {
+        watcher.close();
+      }
+      // the changes are not seen anymore, the next request watches the web root again
+      invalidate(null);
+      watchStarted.set(false);
+      completionHandler.handle(Future.succeededFuture());
+    };
+    if (context.deploymentID() != null) {
+      // stop when the verticle is undeployed, the watch service and the caches are not kept until Vert.x closes
+      context.addCloseHook(stop);
+    } else if (vertx instanceof VertxInternal) {
+      ((VertxInternal) vertx).addCloseHook(stop);
+    }
+  }
+
+  /**
+   * Run the task periodically on a worker thread, one run at a time. A run is skipped while the previous one is still
+   * going on.
+   *
+   * @return the id of the timer
+   */
+  private long setPeriodicBlocking(Vertx vertx, long delay, Runnable task) {
+    AtomicBoolean running = new AtomicBoolean();
+    return vertx.setPeriodic(delay, t -> {
+      if (running.compareAndSet(false, true)) {
+        vertx.executeBlocking(fut -> {
+          try {
+            task.run();
+            fut.complete();
+          } finally {
+            running.set(false);
+          }
+        }, true, res -> {
+          if (res.failed()) {
+            log.error("Failed to check the changes of " + webRoot, res.cause());
+          }
+        });
+      }
+    });
+  }
+
+  private void checkCachedFiles(FileSystem fs) {
+    propsCache.forEach((file, entry) -> {
+      FileProps props;
+      try {
+        props = wrapInTCCLSwitch(() -> fs.propsBlocking(file));
+      } catch (RuntimeException e) {
+        // the file is gone
+        props = null;
+      }
+      if (props == null || !entry.isFor(props)) {
+        invalidate(file);
+      }
+    });
+  }
+
+  /**
+   * Drop the cached properties and content of a file.
+   *
+   * @param file  the file, or {@code null} to drop all the cached files
+   */
+  private void invalidate(String file) {
+    invalidations.incrementAndGet();
+    FileContentCache contentCache = this.contentCache;
+    if (file == null) {
+      propsCache.clear();
+      if (contentCache != null) {
+        contentCache.clear();
+      }
+    } else {
+      propsCache.remove(file);
+      if (contentCache != null) {
+        contentCache.remove(file);
+      }
+      for (String extension : VARIANT_EXTENSIONS) {
+        if (file.endsWith(extension)) {
+          // the variants are cached with the file they were compressed from
+          propsCache.remove(file.substring(0, file.length() - extension.length()));
+        }
+      }
+    }
   }
 
   private static final Pattern RANGE = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
 
-  private void sendFile(RoutingContext context, String file, FileProps fileProps) {
+  private void sendFile(RoutingContext context, String file, CacheEntry entry, Variant variant,
+                        FileContentCache.Entry content) {
     HttpServerRequest request = context.request();
+    // the representation sent, either the file or one of its precompressed variants
+    FileProps fileProps = variant == null ? entry.props : variant.props;
+    String sentFile = variant == null ? file : variant.file;
+    String etag = entry.etag(variant);
 
     Long offset = null;
     Long end = null;
@@ -304,6 +607,13 @@ public class StaticHandlerImpl implements StaticHandler {
     if (rangeSupport) {
       // check if the client is making a range request
       String range = request.getHeader("Range");
+      if (range != null) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null && !entry.matchesIfRange(ifRange, etag)) {
+          // the client has another version of the file, send all of it
+          range = null;
+        }
+      }
       // end byte is length - 1
       end = fileProps.size() - 1;
 
@@ -340,10 +650,18 @@ public class StaticHandlerImpl implements StaticHandler {
       headers = request.response().headers();
       headers.set("Accept-Ranges", "bytes");
       // send the content length even for HEAD requests
-      headers.set("Content-Length", Long.toString(end + 1 - (offset == null ? 0 : offset)));
+      headers.set("Content-Length", offset == null && content != null ? content.contentLength :
+        Long.toString(end + 1 - (offset == null ? 0 : offset)));
     }
 
-    writeCacheHeaders(request, fileProps);
+    writeCacheHeaders(request, entry, etag, content);
+    if (entry.variants.length > 0) {
+      // the response depends on the accepted encodings whether or not a variant is sent
+      request.response().headers().set("vary", "accept-encoding");
+    }
+    if (variant != null) {
+      request.response().headers().set("Content-Encoding", variant.encoding);
+    }
 
     if (request.method() == HttpMethod.HEAD) {
       request.response().end();
@@ -354,42 +672,34 @@ public class StaticHandlerImpl implements StaticHandler {
         // return a partial response
         request.response().setStatusCode(PARTIAL_CONTENT.code());
 
+        if (content != null) {
+          sendContent(request, content, content.content.slice(offset.intValue(), end.intValue() + 1));
+          return;
+        }
         // Wrap the sendFile operation into a TCCL switch, so the file resolver would find the file from the set
         // classloader (if any).
         final Long finalOffset = offset;
         final Long finalEnd = end;
         wrapInTCCLSwitch(() -> {
-          // guess content type
-          String contentType = MimeMapping.getMimeTypeForFilename(file);
-          if (contentType != null) {
-            if (contentType.startsWith("text")) {
-              request.response().putHeader("Content-Type", contentType + ";charset=" + defaultContentEncoding);
-            } else {
-              request.response().putHeader("Content-Type", contentType);
-            }
-          }
+          putContentType(request, contentType(file, variant));
 
-          return request.response().sendFile(file, finalOffset, finalEnd + 1, res2 -> {
+          return request.response().sendFile(sentFile, finalOffset, finalEnd + 1, res2 -> {
             if (res2.failed()) {
               context.fail(res2.cause());
             }
           });
         });
+      } else if (content != null) {
+        sendContent(request, content, content.content);
+      } else if (variant == null && contentCache != null && contentCache.accepts(fileProps.size())) {
+        loadContent(context, file, fileProps);
       } else {
         // Wrap the sendFile operation into a TCCL switch, so the file resolver would find the file from the set
         // classloader (if any).
         wrapInTCCLSwitch(() -> {
-          // guess content type
-          String contentType = MimeMapping.getMimeTypeForFilename(file);
-          if (contentType != null) {
-            if (contentType.startsWith("text")) {
-              request.response().putHeader("Content-Type", contentType + ";charset=" + defaultContentEncoding);
-            } else {
-              request.response().putHeader("Content-Type", contentType);
-            }
-          }
+          putContentType(request, contentType(file, variant));
 
-          return request.response().sendFile(file, res2 -> {
+          return request.response().sendFile(sentFile, res2 -> {
             if (res2.failed()) {
               context.fail(res2.cause());
             }
@@ -399,6 +709,72 @@ public class StaticHandlerImpl implements StaticHandler {
     }
   }
 
+  /**
+   * Read a file small enough for the content cache, cache it and send it.
+   */
+  private void loadContent(RoutingContext context, String file, FileProps fileProps) {
+    FileContentCache contentCache = this.contentCache;
+    FileSystem fs = context.vertx().fileSystem();
+    // read on a worker so the file is resolved with the TCCL switch in place
+    context.vertx().<Buffer>executeBlocking(fut -> fut.complete(wrapInTCCLSwitch(() -> fs.readFileBlocking(file))),
+      false, res -> {
+        if (res.failed()) {
+          context.fail(res.cause());
+          return;
+        }
+        HttpServerRequest request = context.request();
+        Buffer buffer = res.result();
+        if (buffer.length() == fileProps.size()) {
+          FileContentCache.Entry content = contentCache.put(file, fileProps, buffer, contentType(file),
+            lastModified(fileProps));
+          sendContent(request, content, content.content);
+        } else {
+          // the file changed since its properties were read, send what was read without caching it
+          putContentType(request, contentType(file));
+          request.response().putHeader("Content-Length", Integer.toString(buffer.length())).end(buffer);
+        }
+      });
+  }
+
+  private void sendContent(HttpServerRequest request, FileContentCache.Entry content, Buffer buffer) {
+    putContentType(request, content.contentType);
+    if (buffer == content.content) {
+      // formatted once for all the responses
+      request.response().putHeader("Content-Length", content.contentLength);
+    }
+    request.response().end(buffer);
+  }
+
+  /**
+   * @return the content type header of the file, guessed from its name, or {@code null}
+   */
+  private String contentType(String file) {
+    String contentType = MimeMapping.getMimeTypeForFilename(file);
+    if (contentType != null && contentType.startsWith("text")) {
+      return contentType + ";charset=" + defaultContentEncoding;
+    }
+    return contentType;
+  }
+
+  private String contentType(String file, Variant variant) {
+    String contentType = contentType(file);
+    if (contentType == null && variant != null) {
+      // otherwise it would be guessed from the name of the variant
+      return "application/octet-stream";
+    }
+    return contentType;
+  }
+
+  private static void putContentType(HttpServerRequest request, String contentType) {
+    if (contentType != null) {
+      request.response().putHeader("Content-Type", contentType);
+    }
+  }
+
+  private static String lastModified(FileProps props) {
+    return Utils.formatRFC1123DateTime(props.lastModifiedTime());
+  }
+
   @Override
   public StaticHandler setAllowRootFileSystemAccess(boolean allowRootFileSystemAccess) {
     this.allowRootFileSystemAccess = allowRootFileSystemAccess;
@@ -431,7 +807,7 @@ public class StaticHandlerImpl implements StaticHandler {
     if (maxCacheSize < 1) {
       throw new IllegalArgumentException("maxCacheSize must be >= 1");
     }
-    this.maxCacheSize = maxCacheSize;
+    this.propsCache = new ConcurrentBoundedCache<>(maxCacheSize);
     return this;
   }
 
@@ -492,7 +868,7 @@ public class StaticHandlerImpl implements StaticHandler {
   }
 
   @Override
-  public synchronized StaticHandler setEnableFSTuning(boolean enableFSTuning) {
+  public StaticHandler setEnableFSTuning(boolean enableFSTuning) {
     this.tuning = enableFSTuning;
     if (!tuning) {
       resetTuning();
@@ -518,18 +894,68 @@ public class StaticHandlerImpl implements StaticHandler {
     return this;
   }
 
-  private Map<String, CacheEntry> propsCache() {
-    if (propsCache == null) {
-      propsCache = new LRUCache<>(maxCacheSize);
+  @Override
+  public StaticHandler setContentCacheMaxBytes(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes must be >= 0");
     }
-    return propsCache;
+    this.contentCacheMaxBytes = maxBytes;
+    resetContentCache();
+    return this;
   }
 
-  private Date parseDate(String header) {
-    try {
-      return dateTimeFormatter.parse(header);
-    } catch (ParseException e) {
-      throw new VertxException(e);
+  @Override
+  public StaticHandler setContentCacheMaxFileSize(long maxFileSize) {
+    if (maxFileSize < 1) {
+      throw new IllegalArgumentException("maxFileSize must be >= 1");
+    }
+    this.contentCacheMaxFileSize = maxFileSize;
+    resetContentCache();
+    return this;
+  }
+
+  @Override
+  public StaticHandler setContentCacheOffHeap(boolean offHeap) {
+    this.contentCacheOffHeap = offHeap;
+    resetContentCache();
+    return this;
+  }
+
+  @Override
+  public StaticHandler setEnableETag(boolean enableETag) {
+    this.etagEnabled = enableETag;
+    return this;
+  }
+
+  @Override
+  public StaticHandler setStrongETag(boolean strongETag) {
+    this.strongETag = strongETag;
+    return this;
+  }
+
+  @Override
+  public StaticHandler setServePrecompressed(boolean servePrecompressed) {
+    this.servePrecompressed = servePrecompressed;
+    return this;
+  }
+
+  @Override
+  public StaticHandler setWatchFiles(boolean watchFiles) {
+    this.watchFiles = watchFiles;
+    return this;
+  }
+
+  @Override
+  public JsonObject contentCacheStats() {
+    FileContentCache contentCache = this.contentCache;
+    return contentCache == null ? null : contentCache.stats();
+  }
+
+  private void resetContentCache() {
+    if (contentCacheMaxBytes > 0) {
+      contentCache = new FileContentCache(contentCacheMaxBytes, contentCacheMaxFileSize, contentCacheOffHeap);
+    } else {
+      contentCache = null;
     }
   }
 
@@ -646,33 +1072,109 @@ public class StaticHandlerImpl implements StaticHandler {
     });
   }
 
-  // TODO make this static and use Java8 DateTimeFormatter
-  private final class CacheEntry {
+  private static final class CacheEntry {
     final FileProps props;
-    long createDate;
+    final long createDate;
+    // the entity tag of the file, if enabled, strong ones are set once the content is hashed
+    volatile String etag;
+    // the precompressed variants of the file, when they are served
+    volatile Variant[] variants = NO_VARIANTS;
 
-    private CacheEntry(FileProps props, long createDate) {
+    private CacheEntry(FileProps props, long createDate, boolean weakETag) {
       this.props = props;
       this.createDate = createDate;
+      if (weakETag) {
+        etag = weakETag(props, "");
+      }
+    }
+
+    private static String weakETag(FileProps props, String suffix) {
+      return "W/\"" + Long.toHexString(props.size()) + "-" + Long.toHexString(props.lastModifiedTime()) + suffix + "\"";
+    }
+
+    // return the entity tag of the file or of one of its variants, each representation has its own
+    String etag(Variant variant) {
+      String etag = this.etag;
+      if (variant == null) {
+        return etag;
+      }
+      if (etag != null && etag.startsWith("W/")) {
+        return weakETag(variant.props, "-" + variant.encoding);
+      }
+      // strong tags of the variants are hashed from their own content, they may be compressed again on their own
+      return variant.etag;
     }
 
     // return true if there are conditional headers present and they match what is in the entry
-    boolean shouldUseCached(HttpServerRequest request) {
+    boolean shouldUseCached(HttpServerRequest request, String etag) {
+      String ifNoneMatch = request.headers().get("if-none-match");
+      if (ifNoneMatch != null) {
+        // takes precedence over if-modified-since
+        return etag != null && matchesAny(ifNoneMatch, etag);
+      }
       String ifModifiedSince = request.headers().get("if-modified-since");
       if (ifModifiedSince == null) {
         // Not a conditional request
         return false;
       }
-      Date ifModifiedSinceDate = parseDate(ifModifiedSince);
-      boolean modifiedSince = Utils.secondsFactor(props.lastModifiedTime()) > ifModifiedSinceDate.getTime();
+      long ifModifiedSinceDate = Utils.parseRFC1123DateTime(ifModifiedSince);
+      if (ifModifiedSinceDate == -1) {
+        // invalid dates are ignored
+        return false;
+      }
+      boolean modifiedSince = Utils.secondsFactor(props.lastModifiedTime()) > ifModifiedSinceDate;
       return !modifiedSince;
     }
 
-    boolean isOutOfDate() {
-      return System.currentTimeMillis() - createDate > cacheEntryTimeout;
+    // weak comparison of the entity tags of an if-none-match header
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+      if ("*".equals(ifNoneMatch.trim())) {
+        return true;
+      }
+      String opaque = opaqueTag(etag);
+      for (String tag : ifNoneMatch.split(",")) {
+        if (opaque.equals(opaqueTag(tag.trim()))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // return true if the range of an if-range header can be sent, i.e. the validator matches with a strong comparison
+    boolean matchesIfRange(String ifRange, String etag) {
+      if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+        return etag != null && !etag.startsWith("W/") && etag.equals(ifRange);
+      }
+      return Utils.parseRFC1123DateTime(ifRange) == Utils.secondsFactor(props.lastModifiedTime());
     }
 
+    private static String opaqueTag(String tag) {
+      return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    boolean isFor(FileProps props) {
+      return props.size() == this.props.size() && props.lastModifiedTime() == this.props.lastModifiedTime();
+    }
+
+    boolean isOutOfDate(long cacheEntryTimeout) {
+      return System.currentTimeMillis() - createDate > cacheEntryTimeout;
+    }
   }
 
+  /**
+   * A precompressed sibling of a file, e.g. {@code app.js.gz} for {@code app.js}.
+   */
+  private static final class Variant {
+    final String encoding;
+    final String file;
+    final FileProps props;
+    // the strong entity tag of the variant, set once its content is hashed
+    volatile String etag;
 
+    private Variant(String encoding, String file, FileProps props) {
+      this.encoding = encoding;
+      this.file = file;
+      this.props = props;
+    }
+  }
 }
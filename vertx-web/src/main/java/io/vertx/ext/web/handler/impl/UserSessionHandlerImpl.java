@@ -21,6 +21,7 @@ import io.vertx.ext.auth.User;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.Session;
 import io.vertx.ext.web.handler.UserSessionHandler;
+import io.vertx.ext.web.impl.Utils;
 
 /**
  *
@@ -65,8 +66,20 @@ public class UserSessionHandlerImpl implements UserSessionHandler {
       if (user != null) {
         routingContext.setUser(user);
       }
+      if (Utils.isPooled(routingContext)) {
+        // the holder must not keep the context once the response is sent, it is recycled by the router
+        routingContext.addBodyEndHandler(v -> detach(session, routingContext));
+      }
     }
     routingContext.next();
   }
 
+  private static void detach(Session session, RoutingContext routingContext) {
+    UserHolder holder = session.get(SESSION_USER_HOLDER_KEY);
+    if (holder != null && holder.context == routingContext) {
+      holder.user = routingContext.user();
+      holder.context = null;
+    }
+  }
+
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a web root on the file system for changes with a {@link WatchService}.
+ * <p>
+ * Changes are reported with the name the static handler gives to the file, i.e. the web root followed by the path of
+ * the file in it. Directories created later are watched as well. The watcher is polled from one thread at a time, the
+ * watch service queues the events meanwhile.
+ */
+final class WebRootWatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(WebRootWatcher.class);
+
+  private final String webRoot;
+  private final Path root;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> dirs = new HashMap<>();
+
+  private WebRootWatcher(String webRoot, Path root, WatchService watchService) {
+    this.webRoot = webRoot;
+    this.root = root;
+    this.watchService = watchService;
+  }
+
+  /**
+   * @return a watcher of the web root, or {@code null} if the web root is not a directory that can be watched, e.g.
+   * when the files are served from the classpath
+   */
+  static WebRootWatcher create(String webRoot) {
+    Path root;
+    try {
+      root = Paths.get(webRoot);
+    } catch (InvalidPathException e) {
+      return null;
+    }
+    if (!Files.isDirectory(root)) {
+      return null;
+    }
+    WatchService watchService = null;
+    try {
+      watchService = root.getFileSystem().newWatchService();
+      WebRootWatcher watcher = new WebRootWatcher(webRoot, root, watchService);
+      watcher.register(root);
+      return watcher;
+    } catch (IOException | UnsupportedOperationException e) {
+      log.warn("Cannot watch " + webRoot + " for changes", e);
+      if (watchService != null) {
+        try {
+          watchService.close();
+        } catch (IOException ignore) {
+        }
+      }
+      return null;
+    }
+  }
+
+  private void register(Path dir) throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        dirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Report the changes seen since the last poll. This does not wait for events but walks the directories created
+   * meanwhile to watch them, so it must not be called from an event loop. Nothing is reported once the watcher is
+   * closed.
+   *
+   * @param changed  called with the name of each file that changed, or with {@code null} when any file may have
+   *                 changed, i.e. when events were lost or a whole directory was removed
+   */
+  void poll(Handler<String> changed) {
+    WatchKey key;
+    while ((key = nextKey()) != null) {
+      Path dir = dirs.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW || dir == null) {
+          changed.handle(null);
+          continue;
+        }
+        Path path = dir.resolve((Path) event.context());
+        if (event.kind() == ENTRY_DELETE && dirs.containsValue(path)) {
+          // the files of the directory are gone as well
+          changed.handle(null);
+          continue;
+        }
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          try {
+            register(path);
+          } catch (IOException e) {
+            log.warn("Cannot watch " + path + " for changes", e);
+          } catch (ClosedWatchServiceException e) {
+            return;
+          }
+        }
+        changed.handle(fileName(path));
+      }
+      if (!key.reset()) {
+        dirs.remove(key);
+      }
+    }
+  }
+
+  private WatchKey nextKey() {
+    try {
+      return watchService.poll();
+    } catch (ClosedWatchServiceException e) {
+      // closed while a poll was going on
+      return null;
+    }
+  }
+
+  private String fileName(Path path) {
+    StringBuilder file = new StringBuilder(webRoot);
+    for (Path name : root.relativize(path)) {
+      file.append('/').append(name);
+    }
+    return file.toString();
+  }
+
+  void close() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      log.warn("Failed to close the watch service of " + webRoot, e);
+    }
+  }
+}
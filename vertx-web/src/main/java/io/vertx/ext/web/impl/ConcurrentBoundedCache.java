@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A bounded cache that can be used from many threads without locking.
+ * <p>
+ * When the cache is full entries are evicted in insertion order, except that entries read since they were last
+ * looked at by the eviction get a second chance (CLOCK). This approximates LRU without having to reorder anything on
+ * reads. The number of hits, misses and evictions is counted.
+ * <p>
+ * Removed entries are only dropped from the map, the eviction skips them and they are purged from the eviction order
+ * once as many entries as the cache holds have been removed, so removal is constant time amortised.
+ */
+public class ConcurrentBoundedCache<K, V> {
+
+  private final int maxSize;
+  private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+  private final Queue<Entry<K, V>> clock = new ConcurrentLinkedQueue<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final AtomicInteger removed = new AtomicInteger();
+
+  public ConcurrentBoundedCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the cached value or {@code null}
+   */
+  public V get(K key) {
+    Entry<K, V> entry = map.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    if (!entry.referenced) {
+      // only written when needed, hot entries are read from many threads
+      entry.referenced = true;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  /**
+   * Get the cached value, computing and caching it on a miss. Concurrent misses on the same key may compute the value
+   * more than once, the function must not have side effects.
+   */
+  public V get(K key, Function<? super K, ? extends V> function) {
+    V value = get(key);
+    if (value == null) {
+      value = function.apply(key);
+      if (value != null) {
+        put(key, value);
+      }
+    }
+    return value;
+  }
+
+  public void put(K key, V value) {
+    Entry<K, V> entry = map.get(key);
+    if (entry == null) {
+      entry = new Entry<>(key, value);
+      Entry<K, V> previous = map.putIfAbsent(key, entry);
+      if (previous == null) {
+        clock.offer(entry);
+        if (map.size() > maxSize) {
+          evict();
+        }
+        return;
+      }
+      entry = previous;
+    }
+    entry.value = value;
+  }
+
+  public V remove(K key) {
+    Entry<K, V> entry = map.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    if (removed.incrementAndGet() >= maxSize) {
+      removed.set(0);
+      clock.removeIf(e -> map.get(e.key) != e);
+    }
+    return entry.value;
+  }
+
+  /**
+   * Call the action for each cached entry, this does not count as hits.
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    map.forEach((key, entry) -> action.accept(key, entry.value));
+  }
+
+  public void clear() {
+    // entries are dropped from the clock along with the map so that concurrent puts never leave an entry in the map
+    // the eviction can't see
+    Entry<K, V> entry;
+    while ((entry = clock.poll()) != null) {
+      map.remove(entry.key, entry);
+    }
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public int maxSize() {
+    return maxSize;
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return the counters as JSON: {@code size}, {@code maxSize}, {@code hits}, {@code misses} and {@code evictions}
+   */
+  public JsonObject stats() {
+    return new JsonObject()
+      .put("size", size())
+      .put("maxSize", maxSize)
+      .put("hits", hits())
+      .put("misses", misses())
+      .put("evictions", evictions());
+  }
+
+  private void evict() {
+    // every entry gets at most one second chance, so this terminates even if all entries are read concurrently
+    int budget = 2 * maxSize + 2;
+    while (map.size() > maxSize && budget > 0) {
+      Entry<K, V> entry = clock.poll();
+      if (entry == null) {
+        return;
+      }
+      if (map.get(entry.key) != entry) {
+        // removed or cleared meanwhile, not counted as there are at most as many as were removed
+        continue;
+      }
+      budget--;
+      if (entry.referenced) {
+        entry.referenced = false;
+        clock.offer(entry);
+      } else if (map.remove(entry.key, entry)) {
+        evictions.increment();
+      }
+    }
+  }
+
+  private static final class Entry<K, V> {
+
+    private final K key;
+    private volatile V value;
+    private volatile boolean referenced;
+
+    private Entry(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
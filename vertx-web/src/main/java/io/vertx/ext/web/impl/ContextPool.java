@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * The routing contexts of a router recycled once their response has ended, one pool per event loop thread.
+ * <p>
+ * When this logger is at debug level the pool detects leaks: released contexts are not recycled anymore and report
+ * their use instead, so handlers retaining the context past the end of the response can be found.
+ */
+final class ContextPool {
+
+  private static final Logger log = LoggerFactory.getLogger(ContextPool.class);
+
+  // the idle contexts kept per event loop, enough for the requests handled at once on one loop
+  static final int MAX_IDLE = 64;
+
+  private final RouterImpl router;
+  private final ThreadLocal<ArrayDeque<RoutingContextImpl>> idle = ThreadLocal.withInitial(ArrayDeque::new);
+  private final boolean leakDetection = log.isDebugEnabled();
+
+  ContextPool(RouterImpl router) {
+    this.router = router;
+  }
+
+  RoutingContextImpl acquire(HttpServerRequest request) {
+    RoutingContextImpl context = idle.get().pollFirst();
+    if (context == null) {
+      return new RoutingContextImpl(router, request, this);
+    }
+    context.reuse(request);
+    return context;
+  }
+
+  /**
+   * Give back a context whose request and response have ended, it is reset when it is acquired again.
+   */
+  void release(RoutingContextImpl context) {
+    if (leakDetection || !Context.isOnEventLoopThread()) {
+      return;
+    }
+    ArrayDeque<RoutingContextImpl> contexts = idle.get();
+    if (contexts.size() < MAX_IDLE) {
+      contexts.push(context);
+    }
+  }
+
+  boolean leakDetection() {
+    return leakDetection;
+  }
+
+  void leaked(RoutingContextImpl context) {
+    log.error("LEAK: the routing context of " + context.request().method() + " " + context.request().path() +
+      " was used after its response ended, handlers must not retain the context when contexts are pooled",
+      new IllegalStateException("Routing context used after release"));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Handler;
+
+import java.util.Arrays;
+
+/**
+ * The headers or body end handlers of a routing context, called in the reverse order they were added.
+ * <p>
+ * The handlers are kept in a small array sorted by id, a removed handler leaves a tombstone that is only reclaimed
+ * when the array is full. Nothing is allocated after the first handler until more than
+ * {@link #INITIAL_CAPACITY} handlers are added.
+ */
+
+final class EndHandlers implements Handler<Void> {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private int[] ids = new int[INITIAL_CAPACITY];
+  private Handler<Void>[] handlers = newHandlers(INITIAL_CAPACITY);
+  private int size;
+
+  /**
+   * @param id  the id of the handler, greater than the id of any handler added before
+   */
+  void add(int id, Handler<Void> handler) {
+    if (size == handlers.length) {
+      compact();
+      if (size == handlers.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        handlers = Arrays.copyOf(handlers, size * 2);
+      }
+    }
+    ids[size] = id;
+    handlers[size] = handler;
+    size++;
+  }
+
+  boolean remove(int id) {
+    int index = Arrays.binarySearch(ids, 0, size, id);
+    if (index < 0 || handlers[index] == null) {
+      return false;
+    }
+    handlers[index] = null;
+    if (index == size - 1) {
+      size--;
+    }
+    return true;
+  }
+
+  void clear() {
+    Arrays.fill(handlers, 0, size, null);
+    size = 0;
+  }
+
+  private void compact() {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (handlers[i] != null) {
+        ids[count] = ids[i];
+        handlers[count] = handlers[i];
+        count++;
+      }
+    }
+    Arrays.fill(handlers, count, size, null);
+    size = count;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Handler<Void>[] newHandlers(int capacity) {
+    return new Handler[capacity];
+  }
+
+  @Override
+  public void handle(Void v) {
+    // the last added is called first
+    for (int i = size - 1; i >= 0; i--) {
+      Handler<Void> handler = handlers[i];
+      if (handler != null) {
+        handler.handle(null);
+      }
+    }
+  }
+}
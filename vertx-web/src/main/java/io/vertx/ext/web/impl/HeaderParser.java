@@ -4,17 +4,13 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.ParsedHeaderValue;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.util.stream.Collectors.*;
 
 /**
  * Build with the intent of following
@@ -26,13 +22,7 @@ public class HeaderParser {
 
   static final int MAX_HEADER_SIZE = 200;
 
-  private static Pattern COMMA_SPLITTER = Pattern.compile(",(?=(?:(?<!\\\\)\"(?:(?!(?<!\\\\)\").)*(?<!\\\\)\"|\\\\.|[^\"])*$)");
-  // The underscore is accepted due to some jdk locale implementations not using the hyphen (https://github.com/vert-x3/vertx-web/pull/446#discussion_r79402250)
-  private static final Pattern HYPHEN_SPLITTER = Pattern.compile("-|_");
-  private static final Pattern PARAMETER_FINDER =
-      Pattern.compile("\\s*+;\\s*+(?<key>[a-zA-Z0-9]++)\\s*+" +
-          "(?:=\\s*+(?:(?<value1>[a-zA-Z0-9.@#\\-%_]++)|\"(?<value2>(?:[^\\\\\"]*+(?:\\\\.)?)*+)\"))?+");
-
+  private static final int MAX_LANGUAGE_SUBTAGS = 9;
 
   private static final Comparator<ParsedHeaderValue> HEADER_SORTER =
       (ParsedHeaderValue left, ParsedHeaderValue right) -> right.weightedOrder() - left.weightedOrder();
@@ -52,11 +42,52 @@ public class HeaderParser {
     } else if(unparsedHeaderValue.length() > MAX_HEADER_SIZE){
       throw new HeaderTooLongException("Header longer than " + MAX_HEADER_SIZE + " characters");
     }
-    return Arrays.stream(COMMA_SPLITTER.split(unparsedHeaderValue))
-      .map(String::trim)
-      .map(HeaderParser::quotesRemover)
-      .map(objectCreator)
-      .collect(toList());
+    // Values are split on the commas outside of quoted strings. Whether a comma is outside depends on the rest of the
+    // header, so the header is scanned backwards: a comma splits when the quotes after it are balanced and none of the
+    // quoted strings after it spans a line.
+    List<T> values = new ArrayList<>();
+    int end = unparsedHeaderValue.length();
+    boolean quoted = false;
+    boolean splittable = true;
+    boolean split = false;
+    for (int i = end - 1; i >= 0; i--) {
+      char c = unparsedHeaderValue.charAt(i);
+      if (c == '"' && (i == 0 || unparsedHeaderValue.charAt(i - 1) != '\\')) {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted && splittable) {
+        // like String#split, the empty values at the end are dropped
+        if (i + 1 < end || !values.isEmpty()) {
+          values.add(objectCreator.apply(headerValue(unparsedHeaderValue, i + 1, end)));
+        }
+        end = i;
+        split = true;
+      } else if (quoted && isLineTerminator(c)) {
+        splittable = false;
+      }
+    }
+    if (end > 0 || !values.isEmpty() || !split) {
+      values.add(objectCreator.apply(headerValue(unparsedHeaderValue, 0, end)));
+    }
+    Collections.reverse(values);
+    return values;
+  }
+
+  /**
+   * @return the trimmed value between the offsets, with the escaped quotes unescaped
+   */
+  private static String headerValue(String header, int start, int end) {
+    while (start < end && header.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && header.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    for (int i = start; i < end - 1; i++) {
+      if (header.charAt(i) == '\\' && header.charAt(i + 1) == '"') {
+        return quotesRemover(header.substring(start, end));
+      }
+    }
+    return header.substring(start, end);
   }
 
   /**
@@ -73,15 +104,6 @@ public class HeaderParser {
     return val.replace("\\\"", "\"");
   }
 
-  static String matchedSelector(String... matches){
-    for (String match : matches) {
-      if(match != null){
-        return match;
-      }
-    }
-    return null;
-  }
-
   /**
    * Parses a header value
    *
@@ -103,11 +125,38 @@ public class HeaderParser {
     } else {
       valueCallback.accept(headerContent.substring(0, paramIndex));
 
-      Matcher paramFindings = PARAMETER_FINDER.matcher(headerContent);
-
-      while(paramFindings.find()){
-        String key = paramFindings.group("key");
-        String value = matchedSelector(paramFindings.group("value1"), paramFindings.group("value2"));
+      // parameters are ;key, ;key=token or ;key="quoted string", anything else up to the next ; is skipped
+      int length = headerContent.length();
+      while (paramIndex >= 0) {
+        int keyStart = skipWhitespace(headerContent, paramIndex + 1);
+        int keyEnd = keyStart;
+        while (keyEnd < length && isKeyChar(headerContent.charAt(keyEnd))) {
+          keyEnd++;
+        }
+        if (keyEnd == keyStart) {
+          paramIndex = headerContent.indexOf(';', paramIndex + 1);
+          continue;
+        }
+        String key = headerContent.substring(keyStart, keyEnd);
+        String value = null;
+        int pos = skipWhitespace(headerContent, keyEnd);
+        if (pos < length && headerContent.charAt(pos) == '=') {
+          int valueStart = skipWhitespace(headerContent, pos + 1);
+          int valueEnd = valueStart;
+          while (valueEnd < length && isTokenChar(headerContent.charAt(valueEnd))) {
+            valueEnd++;
+          }
+          if (valueEnd > valueStart) {
+            value = headerContent.substring(valueStart, valueEnd);
+            pos = valueEnd;
+          } else if (valueStart < length && headerContent.charAt(valueStart) == '"') {
+            int closingQuote = closingQuote(headerContent, valueStart + 1);
+            if (closingQuote >= 0) {
+              value = headerContent.substring(valueStart + 1, closingQuote);
+              pos = closingQuote + 1;
+            }
+          }
+        }
         // If "q" doesn't have a double as a value, it is ignored on purpose!
         if("q".equalsIgnoreCase(key)){
           try{
@@ -120,10 +169,56 @@ public class HeaderParser {
         } else {
           parameterCallback.accept(key, value);
         }
+        paramIndex = headerContent.indexOf(';', pos);
       }
     }
   }
 
+  private static int skipWhitespace(String s, int index) {
+    while (index < s.length() && isWhitespace(s.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * @return the index of the quote closing the quoted string starting at the index, escaped characters are skipped,
+   * or {@code -1} if the string is not closed
+   */
+  private static int closingQuote(String s, int index) {
+    int length = s.length();
+    while (index < length) {
+      char c = s.charAt(index);
+      if (c == '"') {
+        return index;
+      } else if (c == '\\') {
+        if (index + 1 == length || isLineTerminator(s.charAt(index + 1))) {
+          return -1;
+        }
+        index += 2;
+      } else {
+        index++;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isKeyChar(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+  }
+
+  private static boolean isTokenChar(char c) {
+    return isKeyChar(c) || c == '.' || c == '@' || c == '#' || c == '-' || c == '%' || c == '_';
+  }
+
   public static void parseMIME(
         String headerContent,
         Consumer<String> componentCallback,
@@ -149,6 +244,29 @@ public class HeaderParser {
 
   public static String[] parseLanguageValue(String value) {
     // Do not accept more than 9 subtags. Even more than 5 is a lot already!
-    return HYPHEN_SPLITTER.split(value.trim(), 9);
+    value = value.trim();
+    int count = 1;
+    for (int i = 0; i < value.length() && count < MAX_LANGUAGE_SUBTAGS; i++) {
+      if (isSubtagSeparator(value.charAt(i))) {
+        count++;
+      }
+    }
+    String[] subtags = new String[count];
+    int start = 0;
+    for (int i = 0; i < count - 1; i++) {
+      int end = start;
+      while (!isSubtagSeparator(value.charAt(end))) {
+        end++;
+      }
+      subtags[i] = value.substring(start, end);
+      start = end + 1;
+    }
+    subtags[count - 1] = value.substring(start);
+    return subtags;
+  }
+
+  // The underscore is accepted due to some jdk locale implementations not using the hyphen (https://github.com/vert-x3/vertx-web/pull/446#discussion_r79402250)
+  private static boolean isSubtagSeparator(char c) {
+    return c == '-' || c == '_';
   }
 }
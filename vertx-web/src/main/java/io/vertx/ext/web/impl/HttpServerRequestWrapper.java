@@ -18,27 +18,65 @@ import java.util.Map;
 
 class HttpServerRequestWrapper implements HttpServerRequest {
 
-  private final HttpServerRequest delegate;
+  private HttpServerRequest delegate;
   private HttpMethod method;
   private String path;
   private String uri;
   private String absoluteURI;
-  
+  // path params of the matched routes, added to the params when they are first read
+  private PathParams pathParams;
+  // whether a handler reads the request, or took over the connection
+  private boolean read;
+  // the response given to the handlers instead of the actual one, if any
+  private HttpServerResponse response;
+
   HttpServerRequestWrapper(HttpServerRequest request) {
+    reset(request);
+  }
+
+  /**
+   * Wrap another request, used when the routing context is recycled.
+   */
+  void reset(HttpServerRequest request) {
     delegate = request;
     method = request.method();
     path = request.path();
     uri = request.uri();
     absoluteURI = null;
+    pathParams = null;
+    read = false;
+  }
+
+  /**
+   * @return whether a handler was set to read the body of the request, or the connection was taken over
+   */
+  boolean isRead() {
+    return read;
+  }
+
+  /**
+   * Give this response to the handlers instead of the response of the request, it is kept when the request is reset.
+   */
+  void setResponse(HttpServerResponse response) {
+    this.response = response;
+  }
+
+  /**
+   * Set the end handler of the request without counting it as read.
+   */
+  void onEnd(Handler<Void> handler) {
+    delegate.endHandler(handler);
   }
 
   @Override
   public HttpServerRequest exceptionHandler(Handler<Throwable> handler) {
+    read = true;
     return delegate.exceptionHandler(handler);
   }
 
   @Override
   public HttpServerRequest handler(Handler<Buffer> handler) {
+    read = true;
     return delegate.handler(handler);
   }
 
@@ -54,6 +92,7 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public HttpServerRequest endHandler(Handler<Void> handler) {
+    read = true;
     return delegate.endHandler(handler);
   }
 
@@ -101,7 +140,7 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public HttpServerResponse response() {
-    return delegate.response();
+    return response != null ? response : delegate.response();
   }
 
   @Override
@@ -121,12 +160,34 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public MultiMap params() {
-    return delegate.params();
+    MultiMap params = delegate.params();
+    for (PathParams p = pathParams; p != null; p = p.next) {
+      p.addToParams(params);
+    }
+    return params;
   }
 
   @Override
   public String getParam(String s) {
-    return delegate.getParam(s);
+    return params().get(s);
+  }
+
+  void addPathParams(PathParams params) {
+    if (pathParams == null) {
+      pathParams = params;
+    } else {
+      PathParams last = pathParams;
+      while (last.next != null) {
+        last = last.next;
+      }
+      last.next = params;
+    }
+  }
+
+  void addPathParamsTo(Map<String, String> target) {
+    for (PathParams p = pathParams; p != null; p = p.next) {
+      p.addToPathParams(target);
+    }
   }
 
   @Override
@@ -172,6 +233,7 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public HttpServerRequest customFrameHandler(Handler<HttpFrame> handler) {
+    read = true;
     delegate.customFrameHandler(handler);
     return this;
   }
@@ -183,11 +245,13 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public HttpServerRequest bodyHandler(Handler<Buffer> handler) {
+    read = true;
     return delegate.bodyHandler(handler);
   }
 
   @Override
   public NetSocket netSocket() {
+    read = true;
     return delegate.netSocket();
   }
 
@@ -203,6 +267,7 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public HttpServerRequest uploadHandler(Handler<HttpServerFileUpload> handler) {
+    read = true;
     return delegate.uploadHandler(handler);
   }
 
@@ -218,6 +283,7 @@ class HttpServerRequestWrapper implements HttpServerRequest {
 
   @Override
   public ServerWebSocket upgrade() {
+    read = true;
     return delegate.upgrade();
   }
 
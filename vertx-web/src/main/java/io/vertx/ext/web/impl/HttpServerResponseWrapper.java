@@ -0,0 +1,334 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpFrame;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * The response of a pooled routing context.
+ * <p>
+ * The body end handler set by the handlers is kept here, the one of the actual response calls it and then tells the
+ * context the response has ended. Handlers setting their own body end handler can't prevent the context from being
+ * released this way.
+ */
+class HttpServerResponseWrapper implements HttpServerResponse {
+
+  private final Handler<Void> ended;
+  private final Handler<Void> bodyEnded = v -> bodyEnded();
+  private HttpServerResponse delegate;
+  private Handler<Void> bodyEndHandler;
+
+  /**
+   * @param ended  called once the body of the response has been written, after the body end handler
+   */
+  HttpServerResponseWrapper(HttpServerResponse response, Handler<Void> ended) {
+    this.ended = ended;
+    reset(response);
+  }
+
+  /**
+   * Wrap another response, used when the routing context is recycled.
+   */
+  void reset(HttpServerResponse response) {
+    delegate = response;
+    bodyEndHandler = null;
+    response.bodyEndHandler(bodyEnded);
+  }
+
+  private void bodyEnded() {
+    Handler<Void> handler = bodyEndHandler;
+    if (handler != null) {
+      handler.handle(null);
+    }
+    ended.handle(null);
+  }
+
+  @Override
+  public HttpServerResponse bodyEndHandler(Handler<Void> handler) {
+    bodyEndHandler = handler;
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(Buffer data) {
+    delegate.write(data);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse setWriteQueueMaxSize(int maxSize) {
+    delegate.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return delegate.writeQueueFull();
+  }
+
+  @Override
+  public HttpServerResponse drainHandler(Handler<Void> handler) {
+    delegate.drainHandler(handler);
+    return this;
+  }
+
+  @Override
+  public int getStatusCode() {
+    return delegate.getStatusCode();
+  }
+
+  @Override
+  public HttpServerResponse setStatusCode(int statusCode) {
+    delegate.setStatusCode(statusCode);
+    return this;
+  }
+
+  @Override
+  public String getStatusMessage() {
+    return delegate.getStatusMessage();
+  }
+
+  @Override
+  public HttpServerResponse setStatusMessage(String statusMessage) {
+    delegate.setStatusMessage(statusMessage);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse setChunked(boolean chunked) {
+    delegate.setChunked(chunked);
+    return this;
+  }
+
+  @Override
+  public boolean isChunked() {
+    return delegate.isChunked();
+  }
+
+  @Override
+  public MultiMap headers() {
+    return delegate.headers();
+  }
+
+  @Override
+  public HttpServerResponse putHeader(String name, String value) {
+    delegate.putHeader(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(CharSequence name, CharSequence value) {
+    delegate.putHeader(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(String name, Iterable<String> values) {
+    delegate.putHeader(name, values);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(CharSequence name, Iterable<CharSequence> values) {
+    delegate.putHeader(name, values);
+    return this;
+  }
+
+  @Override
+  public MultiMap trailers() {
+    return delegate.trailers();
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(String name, String value) {
+    delegate.putTrailer(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(CharSequence name, CharSequence value) {
+    delegate.putTrailer(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(String name, Iterable<String> values) {
+    delegate.putTrailer(name, values);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(CharSequence name, Iterable<CharSequence> values) {
+    delegate.putTrailer(name, values);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse closeHandler(Handler<Void> handler) {
+    delegate.closeHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse endHandler(Handler<Void> handler) {
+    delegate.endHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(String chunk, String enc) {
+    delegate.write(chunk, enc);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(String chunk) {
+    delegate.write(chunk);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse writeContinue() {
+    delegate.writeContinue();
+    return this;
+  }
+
+  @Override
+  public void end(String chunk) {
+    delegate.end(chunk);
+  }
+
+  @Override
+  public void end(String chunk, String enc) {
+    delegate.end(chunk, enc);
+  }
+
+  @Override
+  public void end(Buffer chunk) {
+    delegate.end(chunk);
+  }
+
+  @Override
+  public void end() {
+    delegate.end();
+  }
+
+  @Override
+  public HttpServerResponse sendFile(String filename, long offset, long length) {
+    delegate.sendFile(filename, offset, length);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse sendFile(String filename, long offset, long length,
+                                     Handler<AsyncResult<Void>> resultHandler) {
+    delegate.sendFile(filename, offset, length, resultHandler);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public boolean ended() {
+    return delegate.ended();
+  }
+
+  @Override
+  public boolean closed() {
+    return delegate.closed();
+  }
+
+  @Override
+  public boolean headWritten() {
+    return delegate.headWritten();
+  }
+
+  @Override
+  public HttpServerResponse headersEndHandler(Handler<Void> handler) {
+    delegate.headersEndHandler(handler);
+    return this;
+  }
+
+  @Override
+  public long bytesWritten() {
+    return delegate.bytesWritten();
+  }
+
+  @Override
+  public int streamId() {
+    return delegate.streamId();
+  }
+
+  @Override
+  public HttpServerResponse push(HttpMethod method, String host, String path,
+                                 Handler<AsyncResult<HttpServerResponse>> handler) {
+    delegate.push(method, host, path, handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse push(HttpMethod method, String path, MultiMap headers,
+                                 Handler<AsyncResult<HttpServerResponse>> handler) {
+    delegate.push(method, path, headers, handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse push(HttpMethod method, String path, Handler<AsyncResult<HttpServerResponse>> handler) {
+    delegate.push(method, path, handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse push(HttpMethod method, String host, String path, MultiMap headers,
+                                 Handler<AsyncResult<HttpServerResponse>> handler) {
+    delegate.push(method, host, path, headers, handler);
+    return this;
+  }
+
+  @Override
+  public void reset(long code) {
+    delegate.reset(code);
+  }
+
+  @Override
+  public HttpServerResponse writeCustomFrame(int type, int flags, Buffer payload) {
+    delegate.writeCustomFrame(type, flags, payload);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse writeCustomFrame(HttpFrame frame) {
+    delegate.writeCustomFrame(frame);
+    return this;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with a bounded relative error, recording is lock-free and doesn't allocate.
+ * <p>
+ * Values are counted in buckets of exponentially growing width: each power of two is divided in
+ * {@code 2^SUB_BUCKET_BITS} equal buckets, so a value is known within 1/8th of its magnitude. Percentiles report the
+ * upper bound of the bucket they fall in.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets.incrementAndGet(bucket(nanos));
+    count.increment();
+    sum.add(nanos);
+    // the extremes rarely change, only write when they do
+    long current;
+    while (nanos < (current = min.get()) && !min.compareAndSet(current, nanos)) ;
+    while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) ;
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * @param percentile  the percentile, between {@code 0} and {@code 100}
+   * @return an upper bound of the value at the percentile, {@code 0} when nothing was recorded
+   */
+  public long percentile(double percentile) {
+    long total = 0;
+    long[] counts = new long[buckets.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * @return {@code count}, {@code min}, {@code max}, {@code mean}, {@code p50}, {@code p90}, {@code p99} and
+   * {@code p999}, durations are in nanoseconds
+   */
+  public JsonObject toJson() {
+    long count = this.count.sum();
+    return new JsonObject()
+      .put("count", count)
+      .put("min", count == 0 ? 0 : min.get())
+      .put("max", max.get())
+      .put("mean", count == 0 ? 0 : sum.sum() / count)
+      .put("p50", percentile(50))
+      .put("p90", percentile(90))
+      .put("p99", percentile(99))
+      .put("p999", percentile(99.9));
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int shift = magnitude - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lower = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+    return lower + (1L << shift) - 1;
+  }
+}
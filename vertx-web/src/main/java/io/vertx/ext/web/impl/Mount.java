@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+/**
+ * A sub-router merged into the route index of the router it is mounted in.
+ * <p>
+ * The routes of the sub-router only apply when the route the sub-router is mounted on (the gate) matches, and they see
+ * the mount point of the gate, exactly as when the sub-router handles the request itself.
+ */
+final class Mount {
+
+  private final Mount parent;
+  private final RouteState gate;
+  private final String path;
+
+  /**
+   * @param parent  the mount the gate belongs to, {@code null} if the gate is a route of the router owning the index
+   * @param gate  the route the sub-router is mounted on
+   */
+  Mount(Mount parent, RouteState gate) {
+    this.parent = parent;
+    this.gate = gate;
+    String gatePath = gate.path();
+    if (gatePath.charAt(gatePath.length() - 1) == '/') {
+      // Remove the trailing slash or we won't match
+      gatePath = gatePath.substring(0, gatePath.length() - 1);
+    }
+    this.path = parent == null ? gatePath : parent.path + gatePath;
+  }
+
+  Mount parent() {
+    return parent;
+  }
+
+  RouteState gate() {
+    return gate;
+  }
+
+  /**
+   * @return the mount point relative to the mount point of the context using the index
+   */
+  String path() {
+    return path;
+  }
+}
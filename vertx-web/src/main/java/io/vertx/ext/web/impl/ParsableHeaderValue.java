@@ -153,7 +153,7 @@ public class ParsableHeaderValue implements ParsedHeaderValue {
 
   @Override
   public int hashCode() {
-    return Objects.hash(headerContent);
+    return headerContent.hashCode();
   }
 
   @Override
@@ -1,25 +1,47 @@
 package io.vertx.ext.web.impl;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.LanguageHeader;
 import io.vertx.ext.web.MIMEHeader;
 import io.vertx.ext.web.ParsedHeaderValue;
 import io.vertx.ext.web.ParsedHeaderValues;
 
+/**
+ * The negotiation headers of a request, each header is parsed the first time it is read.
+ * <p>
+ * Clients send few distinct values of the accept headers, so the parsed values are cached and shared by all the
+ * requests: the cached lists are unmodifiable and their values fully parsed, which makes them immutable.
+ */
 public class ParsableHeaderValuesContainer implements ParsedHeaderValues {
-  
+
+  private static final int CACHE_SIZE = 256;
+  private static final ConcurrentBoundedCache<String, List<MIMEHeader>> ACCEPT_CACHE =
+    new ConcurrentBoundedCache<>(CACHE_SIZE);
+  private static final ConcurrentBoundedCache<String, List<ParsedHeaderValue>> ACCEPT_CHARSET_CACHE =
+    new ConcurrentBoundedCache<>(CACHE_SIZE);
+  private static final ConcurrentBoundedCache<String, List<ParsedHeaderValue>> ACCEPT_ENCODING_CACHE =
+    new ConcurrentBoundedCache<>(CACHE_SIZE);
+  private static final ConcurrentBoundedCache<String, List<LanguageHeader>> ACCEPT_LANGUAGE_CACHE =
+    new ConcurrentBoundedCache<>(CACHE_SIZE);
+
+  private HttpServerRequest request;
   private List<MIMEHeader> accept;
   private List<ParsedHeaderValue> acceptCharset;
   private List<ParsedHeaderValue> acceptEncoding;
   private List<LanguageHeader> acceptLanguage;
   private ParsableMIMEValue contentType;
-  
+
   public ParsableHeaderValuesContainer(
       List<MIMEHeader> accept, List<ParsedHeaderValue> acceptCharset, List<ParsedHeaderValue> acceptEncoding,
       List<LanguageHeader> acceptLanguage, ParsableMIMEValue contentType) {
+    this.request = null;
     this.accept = accept;
     this.acceptCharset = acceptCharset;
     this.acceptEncoding = acceptEncoding;
@@ -27,27 +49,110 @@ public class ParsableHeaderValuesContainer implements ParsedHeaderValues {
     this.contentType = contentType;
   }
 
+  /**
+   * @param request  the request to parse the headers of, see {@link #checkHeaderSizes()}
+   */
+  public ParsableHeaderValuesContainer(HttpServerRequest request) {
+    this.request = request;
+  }
+
+  /**
+   * Check the length of the headers without parsing them, so that a request with a header too long is rejected
+   * whether or not the header is read.
+   *
+   * @throws HeaderTooLongException  when a header is longer than {@link HeaderParser#MAX_HEADER_SIZE}
+   */
+  public void checkHeaderSizes() {
+    header("Accept");
+    header("Accept-Charset");
+    header("Accept-Encoding");
+    header("Accept-Language");
+    header("Content-Type");
+  }
+
+  /**
+   * Parse the headers of another request, used when the routing context is recycled.
+   */
+  void reset(HttpServerRequest request) {
+    this.request = request;
+    accept = null;
+    acceptCharset = null;
+    acceptEncoding = null;
+    acceptLanguage = null;
+    contentType = null;
+  }
+
   @Override
   public List<MIMEHeader> accept() {
+    if (accept == null) {
+      accept = parse(ACCEPT_CACHE, header("Accept"), ParsableMIMEValue::new);
+    }
     return accept;
   }
   @Override
   public List<ParsedHeaderValue> acceptCharset() {
+    if (acceptCharset == null) {
+      acceptCharset = parse(ACCEPT_CHARSET_CACHE, header("Accept-Charset"), ParsableHeaderValue::new);
+    }
     return acceptCharset;
   }
   @Override
   public List<ParsedHeaderValue> acceptEncoding() {
+    if (acceptEncoding == null) {
+      acceptEncoding = parse(ACCEPT_ENCODING_CACHE, header("Accept-Encoding"), ParsableHeaderValue::new);
+    }
     return acceptEncoding;
   }
   @Override
   public List<LanguageHeader> acceptLanguage() {
+    if (acceptLanguage == null) {
+      acceptLanguage = parse(ACCEPT_LANGUAGE_CACHE, header("Accept-Language"), ParsableLanguageValue::new);
+    }
     return acceptLanguage;
   }
   @Override
   public ParsableMIMEValue contentType() {
+    if (contentType == null) {
+      String value = header("Content-Type");
+      contentType = new ParsableMIMEValue(value == null ? "" : value);
+    }
     return contentType;
   }
 
+  private static <T extends ParsedHeaderValue> List<T> parse(ConcurrentBoundedCache<String, List<T>> cache,
+                                                             String header, Function<String, T> objectCreator) {
+    if (header == null) {
+      return Collections.emptyList();
+    }
+    return cache.get(header, h -> {
+      List<T> values = HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(h, objectCreator));
+      for (T value : values) {
+        // nothing is parsed lazily anymore, the values can be shared
+        ((ParsableHeaderValue) value).forceParse();
+      }
+      return Collections.unmodifiableList(values);
+    });
+  }
+
+  /**
+   * @return the statistics of the caches of parsed headers shared by all the requests, by header name
+   */
+  public static JsonObject cacheStats() {
+    return new JsonObject()
+      .put("Accept", ACCEPT_CACHE.stats())
+      .put("Accept-Charset", ACCEPT_CHARSET_CACHE.stats())
+      .put("Accept-Encoding", ACCEPT_ENCODING_CACHE.stats())
+      .put("Accept-Language", ACCEPT_LANGUAGE_CACHE.stats());
+  }
+
+  private String header(String name) {
+    String value = request.getHeader(name);
+    if (value != null && value.length() > HeaderParser.MAX_HEADER_SIZE) {
+      throw new HeaderTooLongException("Header '" + name + "' too long");
+    }
+    return value;
+  }
+
   @Override
   public <T extends ParsedHeaderValue> T findBestUserAcceptedIn(List<T> userAccepted, Collection<T> in) {
     for (T acceptableType: userAccepted) {
@@ -73,7 +73,9 @@ public class ParsableLanguageValue extends ParsableHeaderValue implements Langua
   @Override
   protected void ensureHeaderProcessed() {
     super.ensureHeaderProcessed();
-    parsedValues = HeaderParser.parseLanguageValue(value);
+    if (parsedValues == null) {
+      parsedValues = HeaderParser.parseLanguageValue(value);
+    }
   }
     
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.MultiMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parameters captured by a {@link PathTemplate} match.
+ * <p>
+ * The values are decoded on first use. The parameters of the routes matched during a request are queued on the
+ * request and added to the request params and to the path params of the context when those are first read, in the
+ * order the routes matched.
+ */
+final class PathParams {
+
+  private final String path;
+  private final List<String> names;
+  private final int[] offsets;
+  private String[] values;
+  private boolean addedToParams;
+  private boolean addedToPathParams;
+  PathParams next;
+
+  PathParams(String path, List<String> names, int[] offsets) {
+    this.path = path;
+    this.names = names;
+    this.offsets = offsets;
+  }
+
+  int size() {
+    return names.size();
+  }
+
+  String name(int index) {
+    return names.get(index);
+  }
+
+  String value(int index) {
+    if (values == null) {
+      values = new String[names.size()];
+    }
+    String value = values[index];
+    if (value == null) {
+      // decode the path as it could contain escaped chars.
+      value = Utils.urlDecode(path.substring(offsets[index * 2], offsets[index * 2 + 1]), false);
+      values[index] = value;
+    }
+    return value;
+  }
+
+  /**
+   * Add the parameters to the request params, unless the request already has a param with the same name.
+   */
+  void addToParams(MultiMap params) {
+    if (!addedToParams) {
+      addedToParams = true;
+      for (int i = 0; i < names.size(); i++) {
+        String name = names.get(i);
+        if (!params.contains(name)) {
+          params.add(name, value(i));
+        }
+      }
+    }
+  }
+
+  void addToPathParams(Map<String, String> pathParams) {
+    if (!addedToPathParams) {
+      addedToPathParams = true;
+      for (int i = 0; i < names.size(); i++) {
+        pathParams.put(names.get(i), value(i));
+      }
+    }
+  }
+}
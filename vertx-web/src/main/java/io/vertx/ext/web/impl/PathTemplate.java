@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled route path with {@code :param} placeholders, e.g. {@code /users/:id/orders/:oid}.
+ * <p>
+ * The literal parts of the path are compared in place and the parameters are recorded as offsets into the request
+ * path, they are only decoded when read. This gives the same results as the regular expression generated for the
+ * path: a parameter matches one or more characters other than {@code /}, trying the longest first, and a trailing
+ * {@code *} matches anything.
+ * <p>
+ * Instances are immutable.
+ */
+final class PathTemplate {
+
+  // literal before each parameter, the last one is after the last parameter
+  private final String[] literals;
+  private final List<String> names;
+  private final boolean wildcard;
+
+  private PathTemplate(String[] literals, List<String> names, boolean wildcard) {
+    this.literals = literals;
+    this.names = names;
+    this.wildcard = wildcard;
+  }
+
+  /**
+   * Compile a route path.
+   *
+   * @param path  the route path
+   * @return the template or {@code null} if the path uses regular expression syntax and must be matched by the regex
+   */
+  static PathTemplate compile(String path) {
+    boolean wildcard = path.charAt(path.length() - 1) == '*';
+    int end = wildcard ? path.length() - 1 : path.length();
+    List<String> literals = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < end) {
+      char c = path.charAt(i);
+      if (c == ':' && i + 1 < end && isNameStart(path.charAt(i + 1))) {
+        int start = ++i;
+        while (i < end && isNamePart(path.charAt(i))) {
+          i++;
+        }
+        literals.add(literal.toString());
+        literal.setLength(0);
+        names.add(path.substring(start, i));
+        continue;
+      }
+      switch (c) {
+        case '*':
+        case '?':
+        case '[':
+        case ']':
+        case '{':
+        case '}':
+        case '|':
+        case '^':
+        case '\\':
+          // interpreted by the regex
+          return null;
+        default:
+          literal.append(c);
+          i++;
+      }
+    }
+    literals.add(literal.toString());
+    return new PathTemplate(literals.toArray(new String[literals.size()]), names, wildcard);
+  }
+
+  private static boolean isNameStart(char c) {
+    return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z';
+  }
+
+  private static boolean isNamePart(char c) {
+    return isNameStart(c) || c >= '0' && c <= '9' || c == '_';
+  }
+
+  /**
+   * @return the parameters, {@code null} when the path does not match
+   */
+  PathParams match(String path) {
+    int[] offsets = new int[names.size() * 2];
+    if (match(path, 0, 0, offsets)) {
+      return new PathParams(path, names, offsets);
+    }
+    return null;
+  }
+
+  private boolean match(String path, int token, int pos, int[] offsets) {
+    String literal = literals[token];
+    if (!path.regionMatches(pos, literal, 0, literal.length())) {
+      return false;
+    }
+    pos += literal.length();
+    if (token == names.size()) {
+      return wildcard || pos == path.length();
+    }
+    // the parameter spans the rest of the segment at most
+    int end = pos;
+    while (end < path.length() && path.charAt(end) != '/') {
+      end++;
+    }
+    for (int i = end; i > pos; i--) {
+      offsets[token * 2] = pos;
+      offsets[token * 2 + 1] = i;
+      if (match(path, token + 1, i, offsets)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+/**
+ * The request path as seen by the routes of one routing context.
+ * <p>
+ * The path is normalised once per request and shared by all the routes examined, route paths are compared against
+ * regions of it so matching does not allocate.
+ */
+final class RequestPath {
+
+  private final String raw;
+  private final String normalised;
+  private final String mountPoint;
+  private String rawSuffix;
+  private String normalisedSuffix;
+
+  RequestPath(String raw, String normalised, String mountPoint) {
+    // a null path is treated as the root
+    this.raw = raw == null ? "/" : raw;
+    this.normalised = normalised;
+    this.mountPoint = mountPoint;
+  }
+
+  String mountPoint() {
+    return mountPoint;
+  }
+
+  /**
+   * @return the same request path as seen with another mount point
+   */
+  RequestPath withMountPoint(String mountPoint) {
+    return new RequestPath(raw, normalised, mountPoint);
+  }
+
+  String path(boolean useNormalisedPath) {
+    return useNormalisedPath ? normalised : raw;
+  }
+
+  /**
+   * @return the path without the mount point, this is the part pattern routes match against
+   */
+  String suffix(boolean useNormalisedPath) {
+    if (mountPoint == null) {
+      return path(useNormalisedPath);
+    }
+    if (useNormalisedPath) {
+      if (normalisedSuffix == null) {
+        normalisedSuffix = normalised.substring(mountPoint.length());
+      }
+      return normalisedSuffix;
+    } else {
+      if (rawSuffix == null) {
+        rawSuffix = raw.substring(mountPoint.length());
+      }
+      return rawSuffix;
+    }
+  }
+
+  /**
+   * Whether the path equals the mount point followed by the route path, ignoring trailing slashes.
+   */
+  boolean matchesExact(String routePath, boolean useNormalisedPath) {
+    String path = path(useNormalisedPath);
+    int length = path.length();
+    if (length > 0 && path.charAt(length - 1) == '/') {
+      length--;
+    }
+    int routeLength = routePath.length();
+    if (routeLength > 0 && routePath.charAt(routeLength - 1) == '/') {
+      routeLength--;
+    }
+    int mountLength = mountPoint == null ? 0 : mountPoint.length();
+    return length == mountLength + routeLength && matchesMountPoint(path) &&
+      path.regionMatches(mountLength, routePath, 0, routeLength);
+  }
+
+  /**
+   * Whether the path starts with the mount point followed by the route path. A route path ending with a slash also
+   * matches the path without it.
+   */
+  boolean matchesPrefix(String routePath, boolean useNormalisedPath) {
+    String path = path(useNormalisedPath);
+    int mountLength = mountPoint == null ? 0 : mountPoint.length();
+    int routeLength = routePath.length();
+    if (path.length() < mountLength + routeLength) {
+      if (routeLength > 0 && routePath.charAt(routeLength - 1) == '/' &&
+        path.length() == mountLength + routeLength - 1) {
+        routeLength--;
+      } else {
+        return false;
+      }
+    }
+    return matchesMountPoint(path) && path.regionMatches(mountLength, routePath, 0, routeLength);
+  }
+
+  private boolean matchesMountPoint(String path) {
+    return mountPoint == null || path.startsWith(mountPoint);
+  }
+}
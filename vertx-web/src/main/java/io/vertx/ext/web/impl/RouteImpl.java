@@ -18,7 +18,6 @@ package io.vertx.ext.web.impl;
 
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
-import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.MIMEHeader;
@@ -31,7 +30,8 @@ import java.util.regex.Pattern;
 
 /**
  *
- * This class is thread-safe
+ * This class is thread-safe. Routing contexts never read the fields of a route directly, they work on the
+ * {@link RouteState} snapshots held by the router index, which is rebuilt whenever a route changes.
  *
  * Some parts (e.g. content negotiation) from Yoke by Paulo Lopes
  *
@@ -54,9 +54,12 @@ public class RouteImpl implements Route {
   private boolean added;
   private Pattern pattern;
   private List<String> groups;
+  private PathTemplate template;
+  private RouterImpl subRouter;
   private boolean useNormalisedPath = true;
 
   RouteImpl(RouterImpl router, int order) {
+    router.checkMutable();
     this.router = router;
     this.order = order;
   }
@@ -87,39 +90,50 @@ public class RouteImpl implements Route {
 
   @Override
   public synchronized Route method(HttpMethod method) {
+    router.checkMutable();
     methods.add(method);
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route path(String path) {
+    router.checkMutable();
     checkPath(path);
     setPath(path);
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route pathRegex(String regex) {
+    router.checkMutable();
     setRegex(regex);
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route produces(String contentType) {
+    router.checkMutable();
     ParsableMIMEValue value = new ParsableMIMEValue(contentType).forceParse();
     produces.add(value);
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route consumes(String contentType) {
+    router.checkMutable();
     ParsableMIMEValue value = new ParsableMIMEValue(contentType).forceParse();
     consumes.add(value);
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route order(int order) {
+    router.checkMutable();
     if (added) {
       throw new IllegalStateException("Can't change order after route is active");
     }
@@ -134,11 +148,15 @@ public class RouteImpl implements Route {
 
   @Override
   public synchronized Route handler(Handler<RoutingContext> contextHandler) {
+    router.checkMutable();
     if (this.contextHandler != null) {
       log.warn("Setting handler for a route more than once!");
     }
     this.contextHandler = contextHandler;
+    // a different handler means the sub-router is no longer mounted here
+    subRouter = null;
     checkAdd();
+    router.routesChanged();
     return this;
   }
 
@@ -154,35 +172,45 @@ public class RouteImpl implements Route {
 
   @Override
   public synchronized Route failureHandler(Handler<RoutingContext> exceptionHandler) {
+    router.checkMutable();
     if (this.failureHandler != null) {
       log.warn("Setting failureHandler for a route more than once!");
     }
     this.failureHandler = exceptionHandler;
+    subRouter = null;
     checkAdd();
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route remove() {
+    router.checkMutable();
     router.remove(this);
     return this;
   }
 
   @Override
   public synchronized Route disable() {
+    router.checkMutable();
     enabled = false;
+    router.routesChanged();
     return this;
   }
 
   @Override
   public synchronized Route enable() {
+    router.checkMutable();
     enabled = true;
+    router.routesChanged();
     return this;
   }
 
   @Override
-  public Route useNormalisedPath(boolean useNormalisedPath) {
+  public synchronized Route useNormalisedPath(boolean useNormalisedPath) {
+    router.checkMutable();
     this.useNormalisedPath = useNormalisedPath;
+    router.routesChanged();
     return this;
   }
 
@@ -212,138 +240,31 @@ public class RouteImpl implements Route {
     return sb.toString();
   }
 
-  synchronized void handleContext(RoutingContext context) {
-    if (contextHandler != null) {
-      contextHandler.handle(context);
-    }
-  }
-
-  synchronized void handleFailure(RoutingContext context) {
-    if (failureHandler != null) {
-      failureHandler.handle(context);
-    }
-  }
-
-  synchronized boolean matches(RoutingContext context, String mountPoint, boolean failure) {
-
-    if (failure && failureHandler == null || !failure && contextHandler == null) {
-      return false;
-    }
+  /**
+   * @return a snapshot of the current configuration of this route or {@code null} if the route is disabled
+   */
+  synchronized RouteState state() {
     if (!enabled) {
-      return false;
-    }
-    HttpServerRequest request = context.request();
-    if (!methods.isEmpty() && !methods.contains(request.method())) {
-      return false;
-    }
-    if (path != null && pattern == null && !pathMatches(mountPoint, context)) {
-      return false;
-    }
-    if (pattern != null) {
-      String path = useNormalisedPath ? Utils.normalizePath(context.request().path()) : context.request().path();
-      if (mountPoint != null) {
-        path = path.substring(mountPoint.length());
-      }
-
-      Matcher m = pattern.matcher(path);
-      if (m.matches()) {
-        if (m.groupCount() > 0) {
-          Map<String, String> params = new HashMap<>(m.groupCount());
-          if (groups != null) {
-            // Pattern - named params
-            // decode the path as it could contain escaped chars.
-            for (int i = 0; i < groups.size(); i++) {
-              final String k = groups.get(i);
-              final String value = Utils.urlDecode(m.group("p" + i), false);
-              if (!request.params().contains(k)) {
-                params.put(k, value);
-              } else {
-                context.pathParams().put(k, value);
-              }
-            }
-          } else {
-            // Straight regex - un-named params
-            // decode the path as it could contain escaped chars.
-            for (int i = 0; i < m.groupCount(); i++) {
-              String group = m.group(i + 1);
-              if(group != null) {
-                final String k = "param" + i;
-                final String value = Utils.urlDecode(group, false);
-                if (!request.params().contains(k)) {
-                  params.put(k, value);
-                } else {
-                  context.pathParams().put(k, value);
-                }
-              }
-            }
-          }
-          request.params().addAll(params);
-          context.pathParams().putAll(params);
-        }
-      } else {
-        return false;
-      }
-    }
-    if (!consumes.isEmpty()) {
-      // Can this route consume the specified content type
-      MIMEHeader contentType = context.parsedHeaders().contentType();
-      MIMEHeader consumal = contentType.findMatchedBy(consumes);
-      if(consumal == null){
-        return false;
-      }
-    }
-    List<MIMEHeader> acceptableTypes = context.parsedHeaders().accept();
-    if (!produces.isEmpty() && !acceptableTypes.isEmpty()) {
-      MIMEHeader selectedAccept = context.parsedHeaders().findBestUserAcceptedIn(acceptableTypes, produces);
-        if(selectedAccept != null){
-          context.setAcceptableContentType(selectedAccept.rawValue());
-          return true;
-        }
-      return false;
+      return null;
     }
-    return true;
+    return new RouteState(this, methods, consumes, produces, path, exactPath, pattern, groups, template,
+      useNormalisedPath, contextHandler, failureHandler, subRouter);
   }
 
   RouterImpl router() {
     return router;
   }
 
-  private boolean pathMatches(String mountPoint, RoutingContext ctx) {
-    String thePath = mountPoint == null ? path : mountPoint + path;
-    String requestPath;
-
-    if (useNormalisedPath) {
-      // never null
-      requestPath = Utils.normalizePath(ctx.request().path());
-    } else {
-      requestPath = ctx.request().path();
-      // can be null
-      if (requestPath == null) {
-        requestPath = "/";
-      }
-    }
-
-    if (exactPath) {
-      return pathMatchesExact(requestPath, thePath);
-    } else {
-      if (thePath.endsWith("/") && requestPath.equals(removeTrailing(thePath))) {
-        return true;
-      }
-      return requestPath.startsWith(thePath);
-    }
-  }
-
-  private boolean pathMatchesExact(String path1, String path2) {
-    // Ignore trailing slash when matching paths
-    return removeTrailing(path1).equals(removeTrailing(path2));
+  synchronized void subRouter(RouterImpl subRouter) {
+    this.subRouter = subRouter;
+    router.routesChanged();
   }
 
-  private String removeTrailing(String path) {
-    int i = path.length();
-    if (path.charAt(i - 1) == '/') {
-      path = path.substring(0, i - 1);
-    }
-    return path;
+  /**
+   * @return the router mounted on this route or {@code null}
+   */
+  synchronized RouterImpl subRouter() {
+    return subRouter;
   }
 
   private void setPath(String path) {
@@ -351,8 +272,13 @@ public class RouteImpl implements Route {
     // a regex for that
     if (path.indexOf(':') != -1) {
       createPatternRegex(path);
+      // most paths can be matched segment by segment without the regex
+      template = PathTemplate.compile(path);
       this.path = path;
     } else {
+      pattern = null;
+      groups = null;
+      template = null;
       if (path.charAt(path.length() - 1) != '*') {
         exactPath = true;
         this.path = path;
@@ -365,6 +291,8 @@ public class RouteImpl implements Route {
 
   private void setRegex(String regex) {
     pattern = Pattern.compile(regex);
+    groups = null;
+    template = null;
   }
 
   // intersection of regex chars and https://tools.ietf.org/html/rfc3986#section-3.3
@@ -405,6 +333,10 @@ public class RouteImpl implements Route {
 
   private boolean exactPath;
 
+  synchronized Set<HttpMethod> methods() {
+    return new HashSet<>(methods);
+  }
+
   int order() {
     return order;
   }
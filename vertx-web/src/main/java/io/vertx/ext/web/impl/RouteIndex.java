@@ -0,0 +1,426 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.http.HttpMethod;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compressed path trie over the routes of a {@link RouterImpl}.
+ * <p>
+ * Exact and prefix routes are stored under their path, pattern routes under the literal part of their path that comes
+ * before the first parameter and regex routes under the literal text their regex starts with. All other routes (no
+ * path, not using the normalised path) are stored under the empty key so they are candidates for every request.
+ * <p>
+ * The routes of sub-routers mounted on a plain path are merged in place of the route they are mounted on, keyed
+ * under the mount point, so nested routers are matched in the same single pass.
+ * <p>
+ * A lookup walks the trie once for the request path and returns only the routes that can possibly match it, in the
+ * same order as the router holds them. Routes restricted to other methods than the request one are left out using
+ * the method mask of each route.
+ * <p>
+ * Routes with a failure handler are also indexed in a second trie, so routing a failure only looks at the routes
+ * that can handle it.
+ * <p>
+ * The index holds a {@link RouteState} snapshot of each enabled route, instances are immutable once built and can be
+ * shared between threads without synchronization.
+ */
+final class RouteIndex {
+
+  private static final int[] NO_ROUTES = new int[0];
+  private static final Node[] NO_CHILDREN = new Node[0];
+
+  private final int version;
+  // the merged sub-routers and their version when the index was built
+  private final RouterImpl[] mounted;
+  private final int[] mountedVersions;
+  private final RouteState[] routes;
+  // the method mask of each route, 0 if it accepts any method
+  private final int[] methods;
+  private final Node root = new Node("");
+  // the routes with a failure handler only
+  private final Node failureRoot = new Node("");
+  private final int[] failureRoutes;
+
+  /**
+   * @param routes  the enabled routes in order, including the routes of the merged sub-routers
+   * @param version  the version of the router when its routes were read
+   * @param mounted  the merged sub-routers
+   * @param mountedVersions  the version of each merged sub-router when its routes were read
+   */
+  RouteIndex(List<RouteState> routes, int version, RouterImpl[] mounted, int[] mountedVersions) {
+    this.version = version;
+    this.mounted = mounted;
+    this.mountedVersions = mountedVersions;
+    this.routes = routes.toArray(new RouteState[routes.size()]);
+    this.methods = new int[this.routes.length];
+    int[] failureRoutes = new int[this.routes.length];
+    int failureCount = 0;
+    for (int i = 0; i < this.routes.length; i++) {
+      methods[i] = this.routes[i].methods();
+      add(root, this.routes[i], i);
+      if (this.routes[i].hasFailureHandler()) {
+        add(failureRoot, this.routes[i], i);
+        failureRoutes[failureCount++] = i;
+      }
+    }
+    this.failureRoutes = Arrays.copyOf(failureRoutes, failureCount);
+  }
+
+  /**
+   * @return whether neither the router nor any of the merged sub-routers changed since the index was built
+   */
+  boolean isCurrent(int version) {
+    if (version != this.version) {
+      return false;
+    }
+    for (int i = 0; i < mounted.length; i++) {
+      if (mounted[i].version() != mountedVersions[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the routes that may match the given request method and path.
+   *
+   * @param method  the request method
+   * @param path  the normalised request path
+   * @param mountPoint  the mount point of the routing context, may be null
+   * @param failure  whether to only look up the routes with a failure handler
+   * @return the candidate routes, in router order. The array must not be modified.
+   */
+  RouteState[] lookup(HttpMethod method, String path, String mountPoint, boolean failure) {
+    Candidates candidates = new Candidates(methods, RouteState.methodBit(method));
+    int pos = 0;
+    if (mountPoint != null) {
+      if (!path.startsWith(mountPoint)) {
+        // routes are keyed relative to the mount point, we can't tell which ones apply
+        if (failure) {
+          candidates.addAll(failureRoutes);
+        } else {
+          for (int i = 0; i < routes.length; i++) {
+            candidates.add(i);
+          }
+        }
+        return candidates.toRoutes(routes);
+      }
+      pos = mountPoint.length();
+    }
+
+    Node node = failure ? failureRoot : root;
+    candidates.addAll(node.prefix);
+    while (pos < path.length()) {
+      Node child = node.child(path.charAt(pos));
+      if (child == null || !path.regionMatches(pos, child.label, 0, child.label.length())) {
+        node = null;
+        break;
+      }
+      node = child;
+      pos += child.label.length();
+      candidates.addAll(node.prefix);
+    }
+    if (node != null) {
+      candidates.addAll(node.exact);
+    }
+    return candidates.toRoutes(routes);
+  }
+
+  /**
+   * Like {@link #lookup(HttpMethod, String, String, boolean)} but the routes with a literal path that does not match are also
+   * left out. The result only depends on the method, the normalised path, the mount point and whether a failure is
+   * routed so it can be cached.
+   */
+  RouteState[] select(HttpMethod method, RequestPath path, boolean failure) {
+    RouteState[] candidates = lookup(method, path.path(true), path.mountPoint(), failure);
+    int count = 0;
+    RouteState[] selected = new RouteState[candidates.length];
+    for (RouteState candidate : candidates) {
+      if (candidate.mount() != null || !candidate.hasNormalisedLiteralPath() || candidate.pathMatches(path)) {
+        selected[count++] = candidate;
+      }
+    }
+    return count == selected.length ? selected : Arrays.copyOf(selected, count);
+  }
+
+  /**
+   * @return a human readable description of the routes and how they are indexed
+   */
+  String describe() {
+    StringBuilder sb = new StringBuilder();
+    describe(root, "", sb);
+    return sb.toString();
+  }
+
+  private void describe(Node node, String key, StringBuilder sb) {
+    key = key + node.label;
+    for (int ordinal : node.prefix) {
+      sb.append("  ").append(key.isEmpty() ? "<any>" : key).append("* -> ").append(routes[ordinal].route()).append('\n');
+    }
+    for (int ordinal : node.exact) {
+      sb.append("  ").append(key).append(" -> ").append(routes[ordinal].route()).append('\n');
+    }
+    for (Node child : node.children) {
+      describe(child, key, sb);
+    }
+  }
+
+  private void add(Node root, RouteState route, int ordinal) {
+    // routes of merged sub-routers are keyed under their mount point
+    String mountPath = route.mount() == null ? "" : route.mount().path();
+    String path = route.path();
+    if (!route.isUseNormalisedPath() || path == null && !route.hasPattern()) {
+      // no path to index on, always a candidate
+      insert(root, mountPath, ordinal, false);
+    } else if (path == null) {
+      // regex route, it can only match paths starting with the literal part of the regex
+      insert(root, mountPath + regexLiteralPrefix(route.regex()), ordinal, false);
+    } else if (route.hasPattern()) {
+      insert(root, mountPath + literalPrefix(path), ordinal, false);
+    } else if (route.isExactPath()) {
+      // trailing slashes are ignored when matching exact paths
+      String key = mountPath + removeTrailing(path);
+      insert(root, key + "/", ordinal, true);
+      if (key.isEmpty() || key.charAt(key.length() - 1) != '/') {
+        insert(root, key, ordinal, true);
+      }
+    } else {
+      path = mountPath + path;
+      insert(root, path, ordinal, false);
+      if (path.charAt(path.length() - 1) == '/') {
+        // "/foo/*" also matches "/foo"
+        insert(root, path.substring(0, path.length() - 1), ordinal, true);
+      }
+    }
+  }
+
+  private static void insert(Node root, String key, int ordinal, boolean exact) {
+    Node node = root;
+    int pos = 0;
+    while (pos < key.length()) {
+      Node child = node.child(key.charAt(pos));
+      if (child == null) {
+        child = new Node(key.substring(pos));
+        node.children = append(node.children, child);
+      } else {
+        int common = commonPrefix(child.label, key, pos);
+        if (common < child.label.length()) {
+          child.split(common);
+        }
+      }
+      node = child;
+      pos += child.label.length();
+    }
+    if (exact) {
+      node.exact = append(node.exact, ordinal);
+    } else {
+      node.prefix = append(node.prefix, ordinal);
+    }
+  }
+
+  private static int commonPrefix(String label, String key, int offset) {
+    int max = Math.min(label.length(), key.length() - offset);
+    int i = 0;
+    while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * The part of a pattern path that is matched literally, i.e. everything before the first parameter or regex
+   * operator.
+   */
+  private static String literalPrefix(String path) {
+    for (int i = 0; i < path.length(); i++) {
+      switch (path.charAt(i)) {
+        case ':':
+        case '*':
+        case '?':
+        case '[':
+        case ']':
+        case '{':
+        case '}':
+        case '|':
+        case '^':
+        case '\\':
+          return path.substring(0, i);
+        default:
+          break;
+      }
+    }
+    return path;
+  }
+
+  /**
+   * The literal text every match of a regex starts with. This is conservative: it stops at the first construct that
+   * is not a plain or escaped character, and drops the last character when it is followed by a quantifier.
+   */
+  static String regexLiteralPrefix(String regex) {
+    if (hasTopLevelAlternation(regex)) {
+      // alternatives may start differently
+      return "";
+    }
+    StringBuilder prefix = new StringBuilder();
+    int i = regex.startsWith("^") ? 1 : 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          // character classes, back references, quoting...
+          break;
+        }
+        prefix.append(regex.charAt(i + 1));
+        i += 2;
+      } else if (c == '?' || c == '*' || c == '+' || c == '{') {
+        // the previous character is optional or repeated
+        if (prefix.length() > 0) {
+          prefix.setLength(prefix.length() - 1);
+        }
+        break;
+      } else if (c == '.' || c == '$' || c == '(' || c == ')' || c == '[' || c == ']' || c == '}' || c == '^') {
+        break;
+      } else {
+        prefix.append(c);
+        i++;
+      }
+    }
+    return prefix.toString();
+  }
+
+  private static boolean hasTopLevelAlternation(String regex) {
+    int depth = 0;
+    boolean inClass = false;
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (inClass) {
+        inClass = c != ']';
+      } else if (c == '[') {
+        inClass = true;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == '|' && depth == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String removeTrailing(String path) {
+    int i = path.length();
+    if (i > 0 && path.charAt(i - 1) == '/') {
+      return path.substring(0, i - 1);
+    }
+    return path;
+  }
+
+  private static int[] append(int[] array, int value) {
+    int[] copy = Arrays.copyOf(array, array.length + 1);
+    copy[array.length] = value;
+    return copy;
+  }
+
+  private static Node[] append(Node[] array, Node value) {
+    Node[] copy = Arrays.copyOf(array, array.length + 1);
+    copy[array.length] = value;
+    return copy;
+  }
+
+  private static final class Node {
+
+    private String label;
+    private Node[] children = NO_CHILDREN;
+    // routes matching when the path ends at this node
+    private int[] exact = NO_ROUTES;
+    // routes matching when the path goes through this node
+    private int[] prefix = NO_ROUTES;
+
+    private Node(String label) {
+      this.label = label;
+    }
+
+    private Node child(char c) {
+      for (Node child : children) {
+        if (child.label.charAt(0) == c) {
+          return child;
+        }
+      }
+      return null;
+    }
+
+    private void split(int at) {
+      Node tail = new Node(label.substring(at));
+      tail.children = children;
+      tail.exact = exact;
+      tail.prefix = prefix;
+      label = label.substring(0, at);
+      children = new Node[]{tail};
+      exact = NO_ROUTES;
+      prefix = NO_ROUTES;
+    }
+  }
+
+  private static final class Candidates {
+
+    private final int[] methods;
+    private final int method;
+    private int[] ordinals = new int[16];
+    private int size;
+
+    private Candidates(int[] methods, int method) {
+      this.methods = methods;
+      this.method = method;
+    }
+
+    private void addAll(int[] values) {
+      for (int value : values) {
+        add(value);
+      }
+    }
+
+    private void add(int ordinal) {
+      int mask = methods[ordinal];
+      if (mask != 0 && (mask & method) == 0) {
+        // the route is for other methods
+        return;
+      }
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    private RouteState[] toRoutes(RouteState[] routes) {
+      Arrays.sort(ordinals, 0, size);
+      RouteState[] result = new RouteState[size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (i == 0 || ordinals[i] != ordinals[i - 1]) {
+          result[count++] = routes[ordinals[i]];
+        }
+      }
+      return count == size ? result : Arrays.copyOf(result, count);
+    }
+  }
+}
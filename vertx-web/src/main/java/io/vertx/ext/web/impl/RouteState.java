@@ -0,0 +1,336 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable snapshot of the configuration of an enabled {@link RouteImpl}.
+ * <p>
+ * Snapshots are taken when the router index is rebuilt, routing contexts only ever see snapshots so matching and
+ * calling the handlers needs no locking.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ * @author <a href="http://pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class RouteState {
+
+  private static final int NEGOTIATED_CACHE_SIZE = 64;
+
+  private final RouteImpl route;
+  // one bit per HttpMethod ordinal, 0 if the route accepts any method
+  private final int methods;
+  private final Set<MIMEHeader> consumes;
+  private final Set<MIMEHeader> produces;
+  // the content type negotiated for the accept headers seen recently, keyed on the identity of the parsed lists:
+  // they are shared by the requests sending the same header, so hits cost neither hashing nor comparing the lists
+  private final ConcurrentBoundedCache<IdentityKey, Optional<String>> negotiated;
+  private final String path;
+  private final boolean exactPath;
+  private final Pattern pattern;
+  private final List<String> groups;
+  private final PathTemplate template;
+  private final boolean useNormalisedPath;
+  private final Handler<RoutingContext> contextHandler;
+  private final Handler<RoutingContext> failureHandler;
+  private final RouterImpl subRouter;
+  private final Mount mount;
+
+  RouteState(RouteImpl route, Set<HttpMethod> methods, Set<MIMEHeader> consumes, Set<MIMEHeader> produces,
+             String path, boolean exactPath, Pattern pattern, List<String> groups, PathTemplate template,
+             boolean useNormalisedPath, Handler<RoutingContext> contextHandler,
+             Handler<RoutingContext> failureHandler, RouterImpl subRouter) {
+    this.route = route;
+    this.methods = methodMask(methods);
+    this.consumes = consumes.isEmpty() ? Collections.emptySet() : new LinkedHashSet<>(consumes);
+    this.produces = produces.isEmpty() ? Collections.emptySet() : new LinkedHashSet<>(produces);
+    this.negotiated = produces.isEmpty() ? null : new ConcurrentBoundedCache<>(NEGOTIATED_CACHE_SIZE);
+    this.path = path;
+    this.exactPath = exactPath;
+    this.pattern = pattern;
+    this.groups = groups == null ? null : new ArrayList<>(groups);
+    this.template = template;
+    this.useNormalisedPath = useNormalisedPath;
+    this.contextHandler = contextHandler;
+    this.failureHandler = failureHandler;
+    this.subRouter = subRouter;
+    this.mount = null;
+  }
+
+  private RouteState(RouteState state, Mount mount) {
+    this.route = state.route;
+    this.methods = state.methods;
+    this.consumes = state.consumes;
+    this.produces = state.produces;
+    this.negotiated = state.negotiated;
+    this.path = state.path;
+    this.exactPath = state.exactPath;
+    this.pattern = state.pattern;
+    this.groups = state.groups;
+    this.template = state.template;
+    this.useNormalisedPath = state.useNormalisedPath;
+    this.contextHandler = state.contextHandler;
+    this.failureHandler = state.failureHandler;
+    this.subRouter = state.subRouter;
+    this.mount = mount;
+  }
+
+  /**
+   * @return this route as part of a sub-router merged at the given mount
+   */
+  RouteState withMount(Mount mount) {
+    return mount == null ? this : new RouteState(this, mount);
+  }
+
+  /**
+   * @return the mount of the sub-router this route comes from, {@code null} if it is a route of the router owning
+   * the index
+   */
+  Mount mount() {
+    return mount;
+  }
+
+  /**
+   * @return the router mounted on this route or {@code null}
+   */
+  RouterImpl subRouter() {
+    return subRouter;
+  }
+
+  /**
+   * @return whether the router mounted on this route can be merged into the index of this router: the route must
+   * only select requests on their normalised path
+   */
+  boolean isPlainMount() {
+    return subRouter != null && hasNormalisedLiteralPath() && !exactPath && methods == 0 && consumes.isEmpty() &&
+      produces.isEmpty() && contextHandler != null && failureHandler != null;
+  }
+
+  RouteImpl route() {
+    return route;
+  }
+
+  RouterImpl router() {
+    return route.router();
+  }
+
+  String path() {
+    return path;
+  }
+
+  boolean isExactPath() {
+    return exactPath;
+  }
+
+  static int methodBit(HttpMethod method) {
+    return 1 << method.ordinal();
+  }
+
+  private static int methodMask(Set<HttpMethod> methods) {
+    int mask = 0;
+    for (HttpMethod method : methods) {
+      mask |= methodBit(method);
+    }
+    return mask;
+  }
+
+  int methods() {
+    return methods;
+  }
+
+  boolean acceptsMethod(HttpMethod method) {
+    return methods == 0 || (methods & methodBit(method)) != 0;
+  }
+
+  String regex() {
+    return pattern == null ? null : pattern.pattern();
+  }
+
+  boolean hasPattern() {
+    return pattern != null;
+  }
+
+  boolean hasPathParams() {
+    return groups != null;
+  }
+
+  boolean isUseNormalisedPath() {
+    return useNormalisedPath;
+  }
+
+  boolean hasFailureHandler() {
+    return failureHandler != null;
+  }
+
+  void handleContext(RoutingContext context) {
+    if (contextHandler != null) {
+      contextHandler.handle(context);
+    }
+  }
+
+  void handleFailure(RoutingContext context) {
+    if (failureHandler != null) {
+      failureHandler.handle(context);
+    }
+  }
+
+  /**
+   * @param pathSelected  whether the route was selected by {@link RouteIndex#select}, the literal path of a route that
+   *                      is not part of a merged sub-router then already matches
+   */
+  boolean matches(RoutingContext context, RequestPath requestPath, boolean failure, boolean pathSelected) {
+
+    if (failure && failureHandler == null || !failure && contextHandler == null) {
+      return false;
+    }
+    HttpServerRequest request = context.request();
+    if (!acceptsMethod(request.method())) {
+      return false;
+    }
+    if (path != null && pattern == null && !(pathSelected && mount == null && useNormalisedPath) &&
+      !pathMatches(requestPath)) {
+      return false;
+    }
+    if (template != null) {
+      PathParams params = template.match(requestPath.suffix(useNormalisedPath));
+      if (params == null) {
+        return false;
+      }
+      if (params.size() > 0) {
+        addPathParams(context, params);
+      }
+    } else if (pattern != null) {
+      Matcher m = pattern.matcher(requestPath.suffix(useNormalisedPath));
+      if (m.matches()) {
+        if (m.groupCount() > 0) {
+          Map<String, String> params = new HashMap<>(m.groupCount());
+          if (groups != null) {
+            // Pattern - named params
+            // decode the path as it could contain escaped chars.
+            for (int i = 0; i < groups.size(); i++) {
+              final String k = groups.get(i);
+              final String value = Utils.urlDecode(m.group("p" + i), false);
+              if (!request.params().contains(k)) {
+                params.put(k, value);
+              } else {
+                context.pathParams().put(k, value);
+              }
+            }
+          } else {
+            // Straight regex - un-named params
+            // decode the path as it could contain escaped chars.
+            for (int i = 0; i < m.groupCount(); i++) {
+              String group = m.group(i + 1);
+              if(group != null) {
+                final String k = "param" + i;
+                final String value = Utils.urlDecode(group, false);
+                if (!request.params().contains(k)) {
+                  params.put(k, value);
+                } else {
+                  context.pathParams().put(k, value);
+                }
+              }
+            }
+          }
+          request.params().addAll(params);
+          context.pathParams().putAll(params);
+        }
+      } else {
+        return false;
+      }
+    }
+    if (!consumes.isEmpty()) {
+      // Can this route consume the specified content type
+      MIMEHeader contentType = context.parsedHeaders().contentType();
+      MIMEHeader consumal = contentType.findMatchedBy(consumes);
+      if(consumal == null){
+        return false;
+      }
+    }
+    if (!produces.isEmpty()) {
+      // the accept header is only parsed for the routes negotiating the content type
+      List<MIMEHeader> acceptableTypes = context.parsedHeaders().accept();
+      if (!acceptableTypes.isEmpty()) {
+        Optional<String> selectedAccept = negotiated.get(new IdentityKey(acceptableTypes), key -> {
+          MIMEHeader selected = context.parsedHeaders().findBestUserAcceptedIn(acceptableTypes, produces);
+          return selected == null ? Optional.empty() : Optional.of(selected.rawValue());
+        });
+        if (selectedAccept.isPresent()) {
+          context.setAcceptableContentType(selectedAccept.get());
+          return true;
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void addPathParams(RoutingContext context, PathParams params) {
+    HttpServerRequest request = context.request();
+    if (request instanceof HttpServerRequestWrapper) {
+      // decoded and added when they are first read
+      ((HttpServerRequestWrapper) request).addPathParams(params);
+    } else {
+      params.addToParams(request.params());
+      params.addToPathParams(context.pathParams());
+    }
+  }
+
+  /**
+   * @return whether the route matches on the normalised path alone, i.e. the path decides for all requests with the
+   * same normalised path
+   */
+  boolean hasNormalisedLiteralPath() {
+    return path != null && pattern == null && useNormalisedPath;
+  }
+
+  boolean pathMatches(RequestPath requestPath) {
+    if (exactPath) {
+      // Ignore trailing slash when matching paths
+      return requestPath.matchesExact(path, useNormalisedPath);
+    } else {
+      return requestPath.matchesPrefix(path, useNormalisedPath);
+    }
+  }
+
+  private static final class IdentityKey {
+
+    private final Object value;
+
+    private IdentityKey(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(value);
+    }
+  }
+}
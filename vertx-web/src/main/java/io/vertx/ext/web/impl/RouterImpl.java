@@ -20,10 +20,12 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RouterMetrics;
 import io.vertx.ext.web.RoutingContext;
 
 import java.util.*;
@@ -64,19 +66,28 @@ public class RouterImpl implements Router {
 
   private final Vertx vertx;
   private final Set<RouteImpl> routes = new ConcurrentSkipListSet<>(routeComparator);
+  // bumped on every change that affects the index, the index is rebuilt lazily on the next request
+  private final AtomicInteger version = new AtomicInteger();
+  private volatile RouteIndex index;
+  private volatile ConcurrentBoundedCache<MatchKey, RouteState[]> matchCache;
+  private volatile boolean frozen;
+  private volatile RouterMetrics metrics;
+  private volatile ContextPool contextPool;
 
   public RouterImpl(Vertx vertx) {
     this.vertx = vertx;
   }
 
   private final AtomicInteger orderSequence = new AtomicInteger();
-  private Handler<Throwable> exceptionHandler;
+  private volatile Handler<Throwable> exceptionHandler;
 
   @Override
   public void accept(HttpServerRequest request) {
     if (log.isTraceEnabled()) log.trace("Router: " + System.identityHashCode(this) +
       " accepting request " + request.method() + " " + request.absoluteURI());
-    new RoutingContextImpl(null, this, request, routes).next();
+    ContextPool pool = contextPool;
+    RoutingContextImpl context = pool == null ? new RoutingContextImpl(null, this, request) : pool.acquire(request);
+    context.next();
   }
 
   @Override
@@ -246,18 +257,20 @@ public class RouterImpl implements Router {
 
   @Override
   public Router clear() {
+    checkMutable();
     routes.clear();
+    routesChanged();
     return this;
   }
 
   @Override
   public void handleContext(RoutingContext ctx) {
-    new RoutingContextWrapper(getAndCheckRoutePath(ctx), ctx.request(), routes, ctx).next();
+    new RoutingContextWrapper(getAndCheckRoutePath(ctx), ctx.request(), this, ctx).next();
   }
 
   @Override
   public void handleFailure(RoutingContext ctx) {
-    new RoutingContextWrapper(getAndCheckRoutePath(ctx), ctx.request(), routes, ctx).next();
+    new RoutingContextWrapper(getAndCheckRoutePath(ctx), ctx.request(), this, ctx).next();
   }
 
   @Override
@@ -268,36 +281,269 @@ public class RouterImpl implements Router {
     if (mountPoint.contains(":")) {
       throw new IllegalArgumentException("Can't use patterns in subrouter mounts");
     }
-    route(mountPoint + "*").handler(subRouter::handleContext).failureHandler(subRouter::handleFailure);
+    Route route = route(mountPoint + "*").handler(subRouter::handleContext).failureHandler(subRouter::handleFailure);
+    if (subRouter instanceof RouterImpl) {
+      ((RouteImpl) route).subRouter((RouterImpl) subRouter);
+    }
     return this;
   }
 
   @Override
-  public synchronized Router exceptionHandler(Handler<Throwable> exceptionHandler) {
+  public Router exceptionHandler(Handler<Throwable> exceptionHandler) {
     this.exceptionHandler = exceptionHandler;
     return this;
   }
 
+  @Override
+  public Router matchCache(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    matchCache = maxSize == 0 ? null : new ConcurrentBoundedCache<>(maxSize);
+    return this;
+  }
+
+  @Override
+  public JsonObject matchCacheStats() {
+    ConcurrentBoundedCache<MatchKey, RouteState[]> cache = matchCache;
+    return cache == null ? null : cache.stats();
+  }
+
+  @Override
+  public Router metrics(boolean enabled) {
+    metrics = enabled ? new RouterMetricsImpl(this) : null;
+    return this;
+  }
+
+  @Override
+  public Router metrics(RouterMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Override
+  public JsonObject metricsSnapshot() {
+    RouterMetrics metrics = this.metrics;
+    return metrics == null ? null : metrics.snapshot();
+  }
+
+  @Override
+  public Router contextPooling(boolean enabled) {
+    contextPool = enabled ? new ContextPool(this) : null;
+    return this;
+  }
+
+  /**
+   * @return the metrics of the routes of this router, {@code null} when disabled
+   */
+  RouterMetrics metrics() {
+    return metrics;
+  }
+
+  @Override
+  public Router freeze() {
+    // the mounted routers are collected first, so that no router is locked while another one is frozen: routers
+    // frozen from different threads can't deadlock
+    Set<RouterImpl> routers = new LinkedHashSet<>();
+    collectUnfrozen(new ArrayDeque<>(), routers);
+    for (RouterImpl router : routers) {
+      router.freezeIndex();
+    }
+    return this;
+  }
+
+  /**
+   * Add this router and the routers mounted in it that are not frozen yet to the set, the mounted routers first.
+   */
+  private void collectUnfrozen(Deque<RouterImpl> mounting, Set<RouterImpl> routers) {
+    if (frozen || routers.contains(this)) {
+      return;
+    }
+    mounting.push(this);
+    for (RouteImpl route : routes) {
+      RouterImpl subRouter = route.subRouter();
+      if (subRouter != null) {
+        if (mounting.contains(subRouter)) {
+          throw new IllegalStateException("Router is mounted in itself at " + route.getPath());
+        }
+        if (route.getPath() == null) {
+          throw new IllegalStateException("Sub routers must be mounted on constant paths (no regex or patterns): " +
+            route);
+        }
+        subRouter.collectUnfrozen(mounting, routers);
+      }
+    }
+    mounting.pop();
+    routers.add(this);
+  }
+
+  private synchronized void freezeIndex() {
+    if (frozen) {
+      return;
+    }
+    RouteIndex index = index();
+    frozen = true;
+    if (log.isDebugEnabled()) {
+      log.debug("Router: " + System.identityHashCode(this) + " frozen with routes:\n" + index.describe());
+    }
+  }
+
+  boolean isFrozen() {
+    return frozen;
+  }
+
+  void checkMutable() {
+    if (frozen) {
+      throw new IllegalStateException("Router is frozen, its routes can't be changed");
+    }
+  }
+
   void add(RouteImpl route) {
     routes.add(route);
+    routesChanged();
   }
 
   void remove(RouteImpl route) {
     routes.remove(route);
+    routesChanged();
+  }
+
+  void routesChanged() {
+    version.incrementAndGet();
   }
 
   Vertx vertx() {
     return vertx;
   }
 
-  Iterator<RouteImpl> iterator() {
-    return routes.iterator();
+  int version() {
+    return version.get();
+  }
+
+  RouteIndex index() {
+    RouteIndex index = this.index;
+    if (frozen) {
+      return index;
+    }
+    int current = version.get();
+    if (index == null || !index.isCurrent(current)) {
+      index = buildIndex(current);
+      this.index = index;
+      ConcurrentBoundedCache<MatchKey, RouteState[]> cache = matchCache;
+      if (cache != null) {
+        // entries of older indexes can't be hit anymore, free them
+        cache.clear();
+      }
+    }
+    return index;
+  }
+
+  private RouteIndex buildIndex(int version) {
+    // versions are read before the routes so that concurrent changes cause another rebuild
+    List<RouteState> states = new ArrayList<>(routes.size());
+    List<RouterImpl> mounted = new ArrayList<>();
+    List<Integer> mountedVersions = new ArrayList<>();
+    Deque<RouterImpl> merging = new ArrayDeque<>();
+    merging.push(this);
+    merge(routes, null, states, mounted, mountedVersions, merging);
+    int[] versions = new int[mountedVersions.size()];
+    for (int i = 0; i < versions.length; i++) {
+      versions[i] = mountedVersions.get(i);
+    }
+    return new RouteIndex(states, version, mounted.toArray(new RouterImpl[mounted.size()]), versions);
+  }
+
+  /**
+   * Add the enabled routes to the list, replacing the routes sub-routers are mounted on by the routes of the
+   * sub-routers. Sub-routers mounted with other criteria than a path, or mounted in themselves, keep handling the
+   * request in their own routing context.
+   */
+  private static void merge(Collection<RouteImpl> routes, Mount mount, List<RouteState> states,
+                            List<RouterImpl> mounted, List<Integer> mountedVersions, Deque<RouterImpl> merging) {
+    for (RouteImpl route : routes) {
+      RouteState state = route.state();
+      if (state == null) {
+        continue;
+      }
+      RouterImpl subRouter = state.subRouter();
+      if (subRouter != null && state.isPlainMount() && !merging.contains(subRouter)) {
+        mounted.add(subRouter);
+        mountedVersions.add(subRouter.version());
+        merging.push(subRouter);
+        merge(subRouter.routes, new Mount(mount, state.withMount(mount)), states, mounted, mountedVersions, merging);
+        merging.pop();
+      } else {
+        states.add(state.withMount(mount));
+      }
+    }
+  }
+
+  boolean isMatchCacheEnabled() {
+    return matchCache != null;
+  }
+
+  /**
+   * @param select  whether the routes with a literal path that does not match are left out as well, the selection is
+   *                cached when the match cache is enabled
+   * @return the routes to try for the request in order, only the routes with a failure handler when routing a failure
+   */
+  RouteState[] selectRoutes(HttpMethod method, RequestPath path, boolean failure, boolean select) {
+    RouteIndex index = index();
+    if (!select) {
+      return index.lookup(method, path.path(true), path.mountPoint(), failure);
+    }
+    ConcurrentBoundedCache<MatchKey, RouteState[]> cache = matchCache;
+    if (cache == null) {
+      // disabled meanwhile
+      return index.select(method, path, failure);
+    }
+    MatchKey key = new MatchKey(index, method, path.path(true), path.mountPoint(), failure);
+    RouteState[] routes = cache.get(key);
+    if (routes == null) {
+      routes = index.select(method, path, failure);
+      cache.put(key, routes);
+    }
+    return routes;
   }
 
   Handler<Throwable> exceptionHandler() {
     return exceptionHandler;
   }
 
+  private static final class MatchKey {
+
+    private final RouteIndex index;
+    private final HttpMethod method;
+    private final String path;
+    private final String mountPoint;
+    private final boolean failure;
+
+    private MatchKey(RouteIndex index, HttpMethod method, String path, String mountPoint, boolean failure) {
+      this.index = index;
+      this.method = method;
+      this.path = path;
+      this.mountPoint = mountPoint;
+      this.failure = failure;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof MatchKey)) return false;
+      MatchKey that = (MatchKey) o;
+      return index == that.index && method == that.method && failure == that.failure && path.equals(that.path) &&
+        Objects.equals(mountPoint, that.mountPoint);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 31 * System.identityHashCode(index) + method.hashCode();
+      result = 31 * result + path.hashCode();
+      result = 31 * result + (mountPoint == null ? 0 : mountPoint.hashCode());
+      return 31 * result + (failure ? 1 : 0);
+    }
+  }
+
   private String getAndCheckRoutePath(RoutingContext ctx) {
     Route currentRoute = ctx.currentRoute();
     String path = currentRoute.getPath();
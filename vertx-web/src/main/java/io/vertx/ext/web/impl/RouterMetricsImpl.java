@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RouterMetrics;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics recorded when enabling them with {@link io.vertx.ext.web.Router#metrics(boolean)}.
+ */
+public class RouterMetricsImpl implements RouterMetrics {
+
+  private static final LatencyHistogram NOTHING_RECORDED = new LatencyHistogram();
+
+  private final RouterImpl router;
+  private final Map<Route, RouteMetrics> routes = new ConcurrentHashMap<>();
+  private final LatencyHistogram matching = new LatencyHistogram();
+
+  public RouterMetricsImpl(RouterImpl router) {
+    this.router = router;
+  }
+
+  @Override
+  public void routeNotMatched(Route route) {
+    metrics(route).notMatched.increment();
+  }
+
+  @Override
+  public void routeHandled(Route route, long nanos) {
+    metrics(route).handlerTime.record(nanos);
+  }
+
+  @Override
+  public void routeFailed(Route route) {
+    metrics(route).failures.increment();
+  }
+
+  @Override
+  public void routesMatched(long nanos) {
+    matching.record(nanos);
+  }
+
+  private RouteMetrics metrics(Route route) {
+    RouteMetrics metrics = routes.get(route);
+    if (metrics == null) {
+      metrics = routes.computeIfAbsent(route, r -> new RouteMetrics());
+    }
+    return metrics;
+  }
+
+  @Override
+  public JsonObject snapshot() {
+    List<Route> current = router.getRoutes();
+    // forget the removed routes
+    routes.keySet().retainAll(new HashSet<>(current));
+    JsonArray array = new JsonArray();
+    for (Route route : current) {
+      RouteImpl impl = (RouteImpl) route;
+      RouteMetrics metrics = routes.get(route);
+      JsonArray methods = new JsonArray();
+      for (HttpMethod method : impl.methods()) {
+        methods.add(method.name());
+      }
+      JsonObject json = new JsonObject()
+        .put("order", impl.order())
+        .put("path", route.getPath())
+        .put("methods", methods);
+      if (metrics == null) {
+        json.put("invocations", 0L).put("failures", 0L).put("notMatched", 0L)
+          .put("handlerTime", NOTHING_RECORDED.toJson());
+      } else {
+        json.put("invocations", metrics.handlerTime.count())
+          .put("failures", metrics.failures.sum())
+          .put("notMatched", metrics.notMatched.sum())
+          .put("handlerTime", metrics.handlerTime.toJson());
+      }
+      array.add(json);
+    }
+    return new JsonObject().put("routes", array).put("matching", matching.toJson());
+  }
+
+  private static final class RouteMetrics {
+    private final LatencyHistogram handlerTime = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder notMatched = new LongAdder();
+  }
+}
@@ -35,6 +35,10 @@ public class RoutingContextDecorator implements RoutingContext {
     this.decoratedContext = decoratedContext;
   }
 
+  boolean isPooled() {
+    return Utils.isPooled(decoratedContext);
+  }
+
   @Override
   public int addBodyEndHandler(Handler<Void> handler) {
     return decoratedContext.addBodyEndHandler(handler);
@@ -65,6 +69,21 @@ public class RoutingContextDecorator implements RoutingContext {
     return currentRoute;
   }
 
+  @Override
+  public <T> RoutingContext put(ContextKey<T> key, T value) {
+    return decoratedContext.put(key, value);
+  }
+
+  @Override
+  public <T> T get(ContextKey<T> key) {
+    return decoratedContext.get(key);
+  }
+
+  @Override
+  public <T> T remove(ContextKey<T> key) {
+    return decoratedContext.remove(key);
+  }
+
   @Override
   public Map<String, Object> data() {
     return decoratedContext.data();
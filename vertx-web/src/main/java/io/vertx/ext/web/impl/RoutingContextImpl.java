@@ -16,6 +16,8 @@
 
 package io.vertx.ext.web.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.Handler;
@@ -24,6 +26,8 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.User;
@@ -31,19 +35,33 @@ import io.vertx.ext.web.*;
 import io.vertx.ext.web.Locale;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class RoutingContextImpl extends RoutingContextImplBase {
 
-  private final RouterImpl router;
+  private static final int INITIAL_VALUES = 8;
+  private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<Map<String, Object>>() {};
+  private static final TypeReference<List<Object>> JSON_ARRAY = new TypeReference<List<Object>>() {};
+
+  // the pool this context is recycled in, null if the router does not pool contexts
+  private final ContextPool pool;
+  // the response of a pooled context, it releases the context once ended
+  private final HttpServerResponseWrapper pooledResponse;
+  private final Handler<Void> releaseHandler;
+  private boolean released;
+  private boolean leakReported;
+
+  // the data put under typed keys, by slot, until data() is called
+  private Object[] values;
+  // the data put with the string keys, and all the data once data() is called
   private Map<String, Object> data;
+  private boolean dataView;
   private Map<String, String> pathParams;
-  private AtomicInteger handlerSeq = new AtomicInteger();
-  private Map<Integer, Handler<Void>> headersEndHandlers;
-  private Map<Integer, Handler<Void>> bodyEndHandlers;
+  private int handlerSeq;
+  private EndHandlers headersEndHandlers;
+  private EndHandlers bodyEndHandlers;
   private Throwable failure;
   private int statusCode = -1;
   private String normalisedPath;
@@ -53,54 +71,113 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   // We use Cookie as the key too so we can return keySet in cookies() without copying
   private Map<String, Cookie> cookies;
   private Buffer body;
+  // decoded from the body when first asked for, until the body is set again
+  private String bodyAsString;
+  private JsonObject bodyAsJson;
+  private JsonArray bodyAsJsonArray;
   private Set<FileUpload> fileUploads;
   private Session session;
   private User user;
 
-  public RoutingContextImpl(String mountPoint, RouterImpl router, HttpServerRequest request, Set<RouteImpl> routes) {
-    super(mountPoint, request, routes);
-    this.router = router;
-    try{
-      fillParsedHeaders(request);
-      if (request.path().charAt(0) != '/') {
-        fail(404);
-      }
-    } catch (HeaderTooLongException e){
-      fail(e);
-    }
+  public RoutingContextImpl(String mountPoint, RouterImpl router, HttpServerRequest request) {
+    super(mountPoint, request, router);
+    this.pool = null;
+    this.pooledResponse = null;
+    this.releaseHandler = null;
+    // parsed when first read, only the length of the headers is checked upfront
+    parsedHeaders = new ParsableHeaderValuesContainer(request);
+    checkRequest();
   }
 
-  private String ensureNotNull(String string){
-    return string == null ? "" : string;
+  RoutingContextImpl(RouterImpl router, HttpServerRequest request, ContextPool pool) {
+    super(null, request, router);
+    this.pool = pool;
+    this.pooledResponse = new HttpServerResponseWrapper(request.response(), v -> responseEnded());
+    this.releaseHandler = v -> pool.release(this);
+    ((HttpServerRequestWrapper) this.request).setResponse(pooledResponse);
+    parsedHeaders = new ParsableHeaderValuesContainer(request);
+    checkRequest();
   }
 
-  private static void assertHeaderSmallEnough(String name, String content){
-    if(content != null && content.length() > HeaderParser.MAX_HEADER_SIZE){
-      throw new HeaderTooLongException("Header '" + name + "' too long");
+  /**
+   * Route another request with this context taken from the pool, everything of the previous request is forgotten.
+   */
+  void reuse(HttpServerRequest request) {
+    ((HttpServerRequestWrapper) this.request).reset(request);
+    pooledResponse.reset(request.response());
+    resetRouting();
+    if (values != null) {
+      Arrays.fill(values, null);
+    }
+    if (data != null) {
+      data.clear();
+    }
+    dataView = false;
+    if (pathParams != null) {
+      pathParams.clear();
+    }
+    handlerSeq = 0;
+    // bound to the previous response
+    headersEndHandlers = null;
+    bodyEndHandlers = null;
+    failure = null;
+    statusCode = -1;
+    normalisedPath = null;
+    acceptableContentType = null;
+    parsedHeaders.reset(request);
+    if (cookies != null) {
+      cookies.clear();
+    }
+    setBody(null);
+    if (fileUploads != null) {
+      fileUploads.clear();
     }
+    session = null;
+    user = null;
+    released = false;
+    checkRequest();
   }
 
-  private void fillParsedHeaders(HttpServerRequest request) {
-    String accept = request.getHeader("Accept");
-    String acceptCharset = request.getHeader ("Accept-Charset");
-    String acceptEncoding = request.getHeader("Accept-Encoding");
-    String acceptLanguage = request.getHeader("Accept-Language");
-    String contentType = ensureNotNull(request.getHeader("Content-Type"));
+  /**
+   * Fail a request the router can't route, the failure is routed when the router calls next.
+   */
+  private void checkRequest() {
+    try {
+      parsedHeaders.checkHeaderSizes();
+    } catch (HeaderTooLongException e) {
+      failure = e;
+      return;
+    }
+    if (request.path().charAt(0) != '/') {
+      statusCode = 404;
+    }
+  }
 
-    assertHeaderSmallEnough("Accept", accept);
-    assertHeaderSmallEnough("Accept-Charset",  acceptCharset);
-    assertHeaderSmallEnough("Accept-Encoding", acceptEncoding);
-    assertHeaderSmallEnough("Accept-Language", acceptLanguage);
-    assertHeaderSmallEnough("Content-Type", contentType);
+  /**
+   * Called once the response of a pooled context has ended, after the body end handlers.
+   */
+  private void responseEnded() {
+    released = true;
+    HttpServerRequestWrapper request = (HttpServerRequestWrapper) this.request;
+    if (request.isEnded()) {
+      pool.release(this);
+    } else if (!request.isRead()) {
+      // nobody reads the rest of the request, e.g. a GET answered before its end was received
+      request.onEnd(releaseHandler);
+    }
+    // else the handlers reading the request can still use the context
+  }
 
-    parsedHeaders = new ParsableHeaderValuesContainer(
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(accept, ParsableMIMEValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptCharset, ParsableHeaderValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptEncoding, ParsableHeaderValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptLanguage, ParsableLanguageValue::new)),
-        new ParsableMIMEValue(contentType)
-    );
+  @Override
+  boolean isPooled() {
+    return pool != null;
+  }
 
+  private void checkReleased() {
+    if (released && !leakReported && pool.leakDetection()) {
+      leakReported = true;
+      pool.leaked(this);
+    }
   }
 
   @Override
@@ -130,6 +207,7 @@ public class RoutingContextImpl extends RoutingContextImplBase {
 
   @Override
   public void next() {
+    checkReleased();
     if (!iterateNext()) {
       checkHandleNoMatch();
     }
@@ -156,18 +234,27 @@ public class RoutingContextImpl extends RoutingContextImplBase {
 
   @Override
   public void fail(int statusCode) {
+    checkReleased();
     this.statusCode = statusCode;
+    routeFailed();
     doFail();
   }
 
   @Override
   public void fail(Throwable t) {
+    checkReleased();
     this.failure = t == null ? new NullPointerException() : t;
+    routeFailed();
     doFail();
   }
 
   @Override
   public RoutingContext put(String key, Object obj) {
+    checkReleased();
+    if (values != null) {
+      // from now on the value of a typed key with that name is the one in the map
+      removeValue(key);
+    }
     getData().put(key, obj);
     return this;
   }
@@ -180,20 +267,91 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   @SuppressWarnings("unchecked")
   public <T> T get(String key) {
-    Object obj = getData().get(key);
+    checkReleased();
+    Object obj = data == null ? null : data.get(key);
+    if (obj == null && values != null) {
+      obj = findValue(key);
+    }
     return (T)obj;
   }
 
   @Override
   @SuppressWarnings("unchecked")
   public <T> T remove(String key) {
-    Object obj = getData().remove(key);
+    checkReleased();
+    Object obj = data == null ? null : data.remove(key);
+    if (values != null) {
+      Object value = removeValue(key);
+      if (obj == null) {
+        obj = value;
+      }
+    }
+    return (T)obj;
+  }
+
+  @Override
+  public <T> RoutingContext put(ContextKey<T> key, T value) {
+    checkReleased();
+    if (dataView) {
+      data.put(key.name(), value);
+    } else {
+      setValue(key.slot(), value);
+      if (data != null) {
+        // the value may have been put under the name of the key before
+        data.remove(key.name());
+      }
+    }
+    return this;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(ContextKey<T> key) {
+    checkReleased();
+    if (dataView) {
+      return (T) data.get(key.name());
+    }
+    Object obj = getValue(key.slot());
+    if (obj == null && data != null) {
+      obj = data.get(key.name());
+    }
+    return (T)obj;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T remove(ContextKey<T> key) {
+    checkReleased();
+    if (dataView) {
+      return (T) data.remove(key.name());
+    }
+    Object obj = setValue(key.slot(), null);
+    if (data != null) {
+      Object named = data.remove(key.name());
+      if (obj == null) {
+        obj = named;
+      }
+    }
     return (T)obj;
   }
 
   @Override
   public Map<String, Object> data() {
-    return getData();
+    checkReleased();
+    if (!dataView) {
+      // the map can be changed by the caller, so from now on it holds all the data
+      Map<String, Object> map = getData();
+      if (values != null) {
+        for (int slot = 0; slot < values.length; slot++) {
+          if (values[slot] != null) {
+            map.put(ContextKey.forSlot(slot).name(), values[slot]);
+          }
+        }
+        values = null;
+      }
+      dataView = true;
+    }
+    return data;
   }
 
   @Override
@@ -232,7 +390,10 @@ public class RoutingContextImpl extends RoutingContextImplBase {
 
   @Override
   public String getBodyAsString() {
-    return body != null ? body.toString() : null;
+    if (bodyAsString == null && body != null) {
+      bodyAsString = body.toString();
+    }
+    return bodyAsString;
   }
 
   @Override
@@ -242,12 +403,29 @@ public class RoutingContextImpl extends RoutingContextImplBase {
 
   @Override
   public JsonObject getBodyAsJson() {
-    return body != null ? new JsonObject(body.toString()) : null;
+    if (bodyAsJson == null && body != null) {
+      bodyAsJson = new JsonObject(decodeBody(JSON_OBJECT));
+    }
+    return bodyAsJson;
   }
 
   @Override
   public JsonArray getBodyAsJsonArray() {
-    return body != null ? new JsonArray(body.toString()) : null;
+    if (bodyAsJsonArray == null && body != null) {
+      bodyAsJsonArray = new JsonArray(decodeBody(JSON_ARRAY));
+    }
+    return bodyAsJsonArray;
+  }
+
+  /**
+   * Parse the body straight from its bytes, without decoding it to a string first.
+   */
+  private <T> T decodeBody(TypeReference<T> type) {
+    try {
+      return Json.mapper.readValue(new ByteBufInputStream(body.getByteBuf()), type);
+    } catch (Exception e) {
+      throw new DecodeException("Failed to decode:" + e.getMessage(), e);
+    }
   }
 
   @Override
@@ -258,6 +436,9 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   public void setBody(Buffer body) {
     this.body = body;
+    bodyAsString = null;
+    bodyAsJson = null;
+    bodyAsJsonArray = null;
   }
 
   @Override
@@ -308,25 +489,25 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   public int addHeadersEndHandler(Handler<Void> handler) {
     int seq = nextHandlerSeq();
-    getHeadersEndHandlers().put(seq, handler);
+    getHeadersEndHandlers().add(seq, handler);
     return seq;
   }
 
   @Override
   public boolean removeHeadersEndHandler(int handlerID) {
-    return getHeadersEndHandlers().remove(handlerID) != null;
+    return getHeadersEndHandlers().remove(handlerID);
   }
 
   @Override
   public int addBodyEndHandler(Handler<Void> handler) {
     int seq = nextHandlerSeq();
-    getBodyEndHandlers().put(seq, handler);
+    getBodyEndHandlers().add(seq, handler);
     return seq;
   }
 
   @Override
   public boolean removeBodyEndHandler(int handlerID) {
-    return getBodyEndHandlers().remove(handlerID) != null;
+    return getBodyEndHandlers().remove(handlerID);
   }
 
   @Override
@@ -366,7 +547,19 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @SuppressWarnings({"rawtypes", "unchecked" })
   @Override
   public List<Locale> acceptableLocales() {
-    return (List)parsedHeaders.acceptLanguage();
+    // the parsed list is shared by the requests, callers can change their own copy
+    return new ArrayList<>((List)parsedHeaders.acceptLanguage());
+  }
+
+  @Override
+  public List<LanguageHeader> acceptableLanguages() {
+    return new ArrayList<>(parsedHeaders.acceptLanguage());
+  }
+
+  @Override
+  public LanguageHeader preferredLanguage() {
+    List<LanguageHeader> acceptableLanguages = parsedHeaders.acceptLanguage();
+    return acceptableLanguages.size() > 0 ? acceptableLanguages.get(0) : null;
   }
 
   @Override
@@ -383,23 +576,22 @@ public class RoutingContextImpl extends RoutingContextImplBase {
     if (pathParams == null) {
       pathParams = new HashMap<>();
     }
+    ((HttpServerRequestWrapper) request).addPathParamsTo(pathParams);
     return pathParams;
   }
 
-  private Map<Integer, Handler<Void>> getHeadersEndHandlers() {
+  private EndHandlers getHeadersEndHandlers() {
     if (headersEndHandlers == null) {
-      // order is important we we should traverse backwards
-      headersEndHandlers = new TreeMap<>(Collections.reverseOrder());
-      response().headersEndHandler(v -> headersEndHandlers.values().forEach(handler -> handler.handle(null)));
+      headersEndHandlers = new EndHandlers();
+      response().headersEndHandler(headersEndHandlers);
     }
     return headersEndHandlers;
   }
 
-  private Map<Integer, Handler<Void>> getBodyEndHandlers() {
+  private EndHandlers getBodyEndHandlers() {
     if (bodyEndHandlers == null) {
-      // order is important we we should traverse backwards
-      bodyEndHandlers = new TreeMap<>(Collections.reverseOrder());
-      response().bodyEndHandler(v -> bodyEndHandlers.values().forEach(handler -> handler.handle(null)));
+      bodyEndHandlers = new EndHandlers();
+      response().bodyEndHandler(bodyEndHandlers);
     }
     return bodyEndHandlers;
   }
@@ -419,10 +611,54 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   }
 
   private void doFail() {
-    this.iter = router.iterator();
+    resetRoutes();
     next();
   }
 
+  /**
+   * @return the value put under the typed key with the name, the few slots in use are scanned so that the names
+   * used with the string API are never looked up in the registry of the keys
+   */
+  private Object findValue(String name) {
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null && ContextKey.forSlot(slot).name().equals(name)) {
+        return values[slot];
+      }
+    }
+    return null;
+  }
+
+  private Object removeValue(String name) {
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null && ContextKey.forSlot(slot).name().equals(name)) {
+        Object previous = values[slot];
+        values[slot] = null;
+        return previous;
+      }
+    }
+    return null;
+  }
+
+  private Object getValue(int slot) {
+    return values != null && slot < values.length ? values[slot] : null;
+  }
+
+  private Object setValue(int slot, Object value) {
+    if (values == null || slot >= values.length) {
+      if (value == null) {
+        return null;
+      }
+      if (values == null) {
+        values = new Object[Math.max(slot + 1, INITIAL_VALUES)];
+      } else {
+        values = Arrays.copyOf(values, Math.max(slot + 1, values.length * 2));
+      }
+    }
+    Object previous = values[slot];
+    values[slot] = value;
+    return previous;
+  }
+
   private Map<String, Object> getData() {
     if (data == null) {
       data = new HashMap<>();
@@ -431,7 +667,7 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   }
 
   private int nextHandlerSeq() {
-    int seq = handlerSeq.incrementAndGet();
+    int seq = ++handlerSeq;
     if (seq == Integer.MAX_VALUE) {
       throw new IllegalStateException("Too many header/body end handlers!");
     }
@@ -21,10 +21,10 @@ import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RouterMetrics;
 import io.vertx.ext.web.RoutingContext;
 
-import java.util.Iterator;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -33,23 +33,40 @@ public abstract class RoutingContextImplBase implements RoutingContext {
 
   private static final Logger log = LoggerFactory.getLogger(RoutingContextImplBase.class);
 
-  private final Set<RouteImpl> routes;
-
+  protected final RouterImpl router;
   protected final String mountPoint;
   protected final HttpServerRequest request;
-  protected Iterator<RouteImpl> iter;
   protected RouteImpl currentRoute;
+  // candidate routes for the current path, looked up lazily from the router index
+  private RouteState[] routes;
+  // whether the routes were selected on their literal path already, see RouteIndex#select
+  private boolean pathSelected;
+  private RequestPath requestPath;
+  private int routeIndex;
+  // the mount of the merged sub-router the current route comes from
+  private Mount currentMount;
+  private String currentMountPoint;
+  // the request path as seen by the merged sub-routers
+  private Mount[] mounts;
+  private RequestPath[] mountPaths;
+  private int mountCount;
 
-  protected RoutingContextImplBase(String mountPoint, HttpServerRequest request, Set<RouteImpl> routes) {
+  protected RoutingContextImplBase(String mountPoint, HttpServerRequest request, RouterImpl router) {
     this.mountPoint = mountPoint;
     this.request = new HttpServerRequestWrapper(request);
-    this.routes = routes;
-    this.iter = routes.iterator();
+    this.router = router;
   }
 
   @Override
   public String mountPoint() {
-    return mountPoint;
+    return currentMount == null ? mountPoint : currentMountPoint;
+  }
+
+  /**
+   * @return whether this context is recycled once its response has ended
+   */
+  boolean isPooled() {
+    return false;
   }
 
   @Override
@@ -58,19 +75,73 @@ public abstract class RoutingContextImplBase implements RoutingContext {
   }
 
   protected void restart() {
-    this.iter = routes.iterator();
-    currentRoute = null;
+    resetRouting();
     next();
   }
 
+  /**
+   * Forget the routes seen so far, the next iteration starts from the first route.
+   */
+  protected void resetRouting() {
+    resetRoutes();
+    currentRoute = null;
+    currentMount = null;
+    currentMountPoint = null;
+  }
+
+  /**
+   * Start iterating again from the first route, the path and the candidates are looked up again on the next iteration.
+   */
+  protected void resetRoutes() {
+    routes = null;
+    requestPath = null;
+    if (mountCount > 0) {
+      Arrays.fill(mountPaths, 0, mountCount, null);
+      mountCount = 0;
+    }
+  }
+
   protected boolean iterateNext() {
     boolean failed = failed();
-    while (iter.hasNext()) {
-      RouteImpl route = iter.next();
-      if (route.matches(this, mountPoint(), failed)) {
-        if (log.isTraceEnabled()) log.trace("Route matches: " + route);
+    RouterMetrics metrics = router.metrics();
+    long start = metrics == null ? 0 : System.nanoTime();
+    if (routes == null) {
+      // the path is normalised once and shared by all the routes we look at
+      requestPath = new RequestPath(request().path(), normalisedPath(), mountPoint);
+      // a failed context only looks at the routes with a failure handler, failing resets the routes
+      pathSelected = router.isMatchCacheEnabled();
+      routes = router.selectRoutes(request().method(), requestPath, failed, pathSelected);
+      routeIndex = 0;
+    }
+    while (routeIndex < routes.length) {
+      RouteState route = routes[routeIndex++];
+      Mount mount = route.mount();
+      boolean matches;
+      try {
+        matches = (mount == null || gatesMatch(mount)) && route.matches(this, requestPath(mount), failed,
+          pathSelected);
+      } catch (HeaderTooLongException e) {
+        // a header the route negotiates on is too long to be parsed
+        if (failed) {
+          matches = false;
+        } else {
+          fail(e);
+          return true;
+        }
+      }
+      if (matches) {
+        if (log.isTraceEnabled()) log.trace("Route matches: " + route.route());
+        if (metrics != null) {
+          metrics.routesMatched(System.nanoTime() - start);
+        }
+        RouterMetrics routeMetrics = route.router().metrics();
+        long handlerStart = routeMetrics == null ? 0 : System.nanoTime();
         try {
-          currentRoute = route;
+          currentRoute = route.route();
+          currentMount = mount;
+          if (mount != null) {
+            currentMountPoint = requestPath(mount).mountPoint();
+          }
           if (log.isTraceEnabled()) log.trace("Calling the " + (failed ? "failure" : "") + " handler");
           if (failed) {
             route.handleFailure(this);
@@ -88,12 +159,71 @@ public abstract class RoutingContextImplBase implements RoutingContext {
             unhandledFailure(-1, t, route.router());
           }
         }
+        if (routeMetrics != null) {
+          routeMetrics.routeHandled(route.route(), System.nanoTime() - handlerStart);
+        }
         return true;
       }
+      RouterMetrics routeMetrics = route.router().metrics();
+      if (routeMetrics != null) {
+        routeMetrics.routeNotMatched(route.route());
+      }
+    }
+    if (metrics != null) {
+      metrics.routesMatched(System.nanoTime() - start);
     }
     return false;
   }
 
+  /**
+   * Report the failure of the context to the metrics of the current route.
+   */
+  protected void routeFailed() {
+    RouteImpl route = currentRoute;
+    if (route != null) {
+      RouterMetrics metrics = route.router().metrics();
+      if (metrics != null) {
+        metrics.routeFailed(route);
+      }
+    }
+  }
+
+
+  /**
+   * @return whether the routes the sub-routers are mounted on match the request, i.e. the routes of the sub-router
+   * apply to it
+   */
+  private boolean gatesMatch(Mount mount) {
+    for (Mount m = mount; m != null; m = m.parent()) {
+      if (!m.gate().pathMatches(requestPath(m.parent()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private RequestPath requestPath(Mount mount) {
+    if (mount == null) {
+      return requestPath;
+    }
+    for (int i = 0; i < mountCount; i++) {
+      if (mounts[i] == mount) {
+        return mountPaths[i];
+      }
+    }
+    if (mounts == null) {
+      mounts = new Mount[4];
+      mountPaths = new RequestPath[4];
+    } else if (mountCount == mounts.length) {
+      mounts = Arrays.copyOf(mounts, mountCount * 2);
+      mountPaths = Arrays.copyOf(mountPaths, mountCount * 2);
+    }
+    RequestPath path = requestPath.withMountPoint(mountPoint == null ? mount.path() : mountPoint + mount.path());
+    mounts[mountCount] = mount;
+    mountPaths[mountCount] = path;
+    mountCount++;
+    return path;
+  }
 
   protected void unhandledFailure(int statusCode, Throwable failure, RouterImpl router) {
     int code = statusCode != -1 ? statusCode : 500;
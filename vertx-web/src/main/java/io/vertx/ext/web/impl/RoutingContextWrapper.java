@@ -38,18 +38,24 @@ import java.util.Set;
 public class RoutingContextWrapper extends RoutingContextImplBase {
 
   protected final RoutingContext inner;
-  private final String mountPoint;
 
-  public RoutingContextWrapper(String mountPoint, HttpServerRequest request, Set<RouteImpl> iter,
+  public RoutingContextWrapper(String mountPoint, HttpServerRequest request, RouterImpl router,
                                RoutingContext inner) {
-    super(mountPoint, request, iter);
+    super(mountPoint(inner.mountPoint(), mountPoint), request, router);
     this.inner = inner;
-    String parentMountPoint = inner.mountPoint();
+  }
+
+  private static String mountPoint(String parentMountPoint, String mountPoint) {
     if (mountPoint.charAt(mountPoint.length() - 1) == '/') {
       // Remove the trailing slash or we won't match
       mountPoint = mountPoint.substring(0, mountPoint.length() - 1);
     }
-    this.mountPoint = parentMountPoint == null ? mountPoint : parentMountPoint + mountPoint;
+    return parentMountPoint == null ? mountPoint : parentMountPoint + mountPoint;
+  }
+
+  @Override
+  boolean isPooled() {
+    return Utils.isPooled(inner);
   }
 
   @Override
@@ -64,11 +70,13 @@ public class RoutingContextWrapper extends RoutingContextImplBase {
 
   @Override
   public void fail(int statusCode) {
+    routeFailed();
     inner.fail(statusCode);
   }
 
   @Override
   public void fail(Throwable throwable) {
+    routeFailed();
     inner.fail(throwable);
   }
 
@@ -88,6 +96,22 @@ public class RoutingContextWrapper extends RoutingContextImplBase {
     return inner.remove(key);
   }
 
+  @Override
+  public <T> RoutingContext put(ContextKey<T> key, T value) {
+    inner.put(key, value);
+    return this;
+  }
+
+  @Override
+  public <T> T get(ContextKey<T> key) {
+    return inner.get(key);
+  }
+
+  @Override
+  public <T> T remove(ContextKey<T> key) {
+    return inner.remove(key);
+  }
+
   @Override
   public Map<String, Object> data() {
     return inner.data();
@@ -166,11 +190,6 @@ public class RoutingContextWrapper extends RoutingContextImplBase {
     return inner.statusCode();
   }
 
-  @Override
-  public String mountPoint() {
-    return mountPoint;
-  }
-
   @Override
   public String normalisedPath() {
     return inner.normalisedPath();
@@ -26,6 +26,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Comparator;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -40,6 +45,8 @@ public class Utils extends io.vertx.core.impl.Utils {
   private static final Pattern COMMA_SPLITTER = Pattern.compile(" *, *");
   private static final Pattern SEMICOLON_SPLITTER = Pattern.compile(" *; *");
   private static final Pattern EQUAL_SPLITTER = Pattern.compile(" *= *");
+  private static final DateTimeFormatter RFC1123_DATE_TIME =
+    DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
 
   private static int indexOfSlash(CharSequence str, int start) {
     for (int i = start; i < str.length(); i++) {
@@ -122,10 +129,19 @@ public class Utils extends io.vertx.core.impl.Utils {
       return "/";
     }
 
+    boolean leadingSlash = pathname.charAt(0) == '/';
+    if (pathname.indexOf('%') == -1) {
+      // nothing to decode, most paths don't need any change at all
+      if (leadingSlash && hasNoDotsNorEmptySegments(pathname)) {
+        return pathname;
+      }
+      return removeDots(leadingSlash ? pathname : "/" + pathname);
+    }
+
     StringBuilder ibuf = new StringBuilder(pathname.length() + 1);
 
     // Not standard!!!
-    if (pathname.charAt(0) != '/') {
+    if (!leadingSlash) {
       ibuf.append('/');
     }
 
@@ -163,6 +179,10 @@ public class Utils extends io.vertx.core.impl.Utils {
       return null;
     }
 
+    if (path.length() > 0 && path.charAt(0) == '/' && hasNoDotsNorEmptySegments(path)) {
+      return path.toString();
+    }
+
     final StringBuilder obuf = new StringBuilder(path.length());
 
     int i = 0;
@@ -218,6 +238,31 @@ public class Utils extends io.vertx.core.impl.Utils {
     return obuf.toString();
   }
 
+  /**
+   * @return whether the path, starting with a slash, has neither {@code .} nor {@code ..} nor empty segments so that
+   * removing the dots leaves it unchanged
+   */
+  private static boolean hasNoDotsNorEmptySegments(CharSequence path) {
+    int length = path.length();
+    for (int i = 0; i < length - 1; i++) {
+      if (path.charAt(i) == '/') {
+        char c = path.charAt(i + 1);
+        if (c == '/') {
+          return false;
+        }
+        if (c == '.') {
+          if (i + 2 == length || path.charAt(i + 2) == '/') {
+            return false;
+          }
+          if (path.charAt(i + 2) == '.' && (i + 3 == length || path.charAt(i + 3) == '/')) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Decodes a bit of an URL encoded by a browser.
    *
@@ -349,6 +394,31 @@ public class Utils extends io.vertx.core.impl.Utils {
     return dtf;
   }
 
+  /**
+   * Format a time as an RFC 1123 date as used by HTTP headers, the formatter is immutable so this can be called from
+   * any thread.
+   *
+   * @param millis  the time in ms since the epoch
+   * @return the formatted date
+   */
+  public static String formatRFC1123DateTime(long millis) {
+    return RFC1123_DATE_TIME.format(Instant.ofEpochMilli(millis));
+  }
+
+  /**
+   * Parse an RFC 1123 date as used by HTTP headers.
+   *
+   * @param date  the date
+   * @return the time in ms since the epoch, or {@code -1} if the date cannot be parsed
+   */
+  public static long parseRFC1123DateTime(String date) {
+    try {
+      return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+
   public static String pathOffset(String path, RoutingContext context) {
     int prefixLen = 0;
     String mountPoint = context.mountPoint();
@@ -366,6 +436,20 @@ public class Utils extends io.vertx.core.impl.Utils {
     return prefixLen != 0 ? path.substring(prefixLen) : path;
   }
 
+  /**
+   * @return whether the routing context, or the context it wraps, is recycled by its router once its response has
+   * ended, handlers must then not retain it
+   */
+  public static boolean isPooled(RoutingContext context) {
+    if (context instanceof RoutingContextImplBase) {
+      return ((RoutingContextImplBase) context).isPooled();
+    }
+    if (context instanceof RoutingContextDecorator) {
+      return ((RoutingContextDecorator) context).isPooled();
+    }
+    return false;
+  }
+
   private static final Comparator<String> ACCEPT_X_COMPARATOR = new Comparator<String>() {
     float getQuality(String s) {
       if (s == null) {
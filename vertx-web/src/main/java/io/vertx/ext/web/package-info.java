@@ -489,6 +489,57 @@
  *
  * You can re-enable a disabled route with {@link io.vertx.ext.web.Route#enable}
  *
+ * == Freezing a router
+ *
+ * Once all the routes are set up you can call {@link io.vertx.ext.web.Router#freeze}. The routes of the router and of
+ * the routers mounted in it are validated and compiled immediately, so mistakes like a router mounted in itself are
+ * reported when the application starts. Any later attempt to add, change or remove a route throws an
+ * `IllegalStateException`. Enable debug logging for `io.vertx.ext.web.impl.RouterImpl` to see the compiled routes.
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#freeze}
+ * ----
+ *
+ * == Caching route matching
+ *
+ * When most requests go to a limited set of paths, the router can remember which routes apply to a request method
+ * and normalised path with {@link io.vertx.ext.web.Router#matchCache}. Subsequent requests for the same method and
+ * path skip looking up the routes and matching their paths. The other criteria (MIME types, path parameters...) are
+ * still checked for every request. The cache is bounded and is invalidated whenever the routes change.
+ *
+ * {@link io.vertx.ext.web.Router#matchCacheStats} returns the size of the cache and the number of hits, misses and
+ * evictions.
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#matchCache}
+ * ----
+ *
+ * == Route metrics
+ *
+ * To find out which routes are slow, enable the metrics of a router with {@link io.vertx.ext.web.Router#metrics}. The
+ * router then records for each of its routes:
+ *
+ * * `invocations`: how many times its handler was called
+ * * `handlerTime`: a histogram of the time spent in its handler, in nanoseconds
+ * * `failures`: how many times the routing context failed while the route was the current one
+ * * `notMatched`: how many times the route was checked against a request and did not match it
+ *
+ * as well as `matching`, a histogram of the time spent looking for the next route. The time spent in a handler covers
+ * the synchronous part of its work only, including the handlers it passes the request to by calling `next`.
+ *
+ * {@link io.vertx.ext.web.Router#metricsSnapshot} returns the metrics as JSON and the
+ * {@link io.vertx.ext.web.handler.RouterMetricsHandler} serves them over HTTP:
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#routerMetrics}
+ * ----
+ *
+ * Metrics are disabled by default and have no cost then. Each router records its own routes, so the metrics of a
+ * sub-router must be enabled on the sub-router.
+ *
  * == Context data
  *
  * You can use the context data in the {@link io.vertx.ext.web.RoutingContext} to maintain any data that you
@@ -509,6 +560,51 @@
  * [language, java]
  * Alternatively you can access the entire context data map with {@link io.vertx.ext.web.RoutingContext#data}.
  *
+ * [language, java]
+ * ----
+ * Data shared by handlers on every request can be put under a typed {@link io.vertx.ext.web.ContextKey} instead of a
+ * string. A key is given a slot when it is created, so its value is read and written without hashing. Keep the keys
+ * in constants:
+ *
+ * [source, java]
+ * \----
+ * static final ContextKey<User> CURRENT_USER = ContextKey.create("currentUser");
+ *
+ * router.route().handler(routingContext -> {
+ *   routingContext.put(CURRENT_USER, lookupUser(routingContext));
+ *   routingContext.next();
+ * });
+ *
+ * router.get("/profile").handler(routingContext -> {
+ *   User user = routingContext.get(CURRENT_USER);
+ *   // ...
+ * });
+ * \----
+ *
+ * The value is also available under the name of the key, with {@link io.vertx.ext.web.RoutingContext#get} and in the
+ * map returned by {@link io.vertx.ext.web.RoutingContext#data}, so templates can still use it.
+ * ----
+ *
+ * == Context pooling
+ *
+ * Each request is routed with a new {@link io.vertx.ext.web.RoutingContext}. Under heavy load you can have the router
+ * recycle the contexts instead, with {@link io.vertx.ext.web.Router#contextPooling}. Once the response and the request
+ * have ended the context goes back to a pool of its event loop and is reset before it routes another request:
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#contextPooling}
+ * ----
+ *
+ * Pooling is only safe when no handler uses the context after the response has ended. Don't enable it when handlers
+ * keep a reference to the context, its request or its data, e.g. in a timer, in the callback of a call made after
+ * ending the response or in the result of an asynchronous call ignoring that the response was already sent. A context
+ * whose request was still being read when the response ended is not recycled.
+ *
+ * To find the handlers retaining contexts, set the `io.vertx.ext.web.impl.ContextPool` logger to debug level before
+ * enabling pooling: contexts are not recycled anymore and an error with the stack trace is logged the first time a
+ * released context is used.
+ *
  * == Reroute
  *
  * Until now all routing mechanism allow you to handle your requests in a sequential way, however there might be times
@@ -1050,6 +1146,12 @@
  * If a browser sends a GET or a HEAD request with an `if-modified-since` header and the resource has not been modified
  * since that date, a `304` status is returned which tells the browser to use its locally cached resource.
  *
+ * An `etag` header can be sent as well with {@link io.vertx.ext.web.handler.StaticHandler#setEnableETag(boolean)}. ETags
+ * are weak ones made of the size and last modified date of the file, or with
+ * {@link io.vertx.ext.web.handler.StaticHandler#setStrongETag(boolean)} strong ones computed from a hash of the file
+ * content, hashed once on a worker thread. A request with an `if-none-match` header matching the ETag gets a `304`,
+ * and a range request with an `if-range` header only gets the range if the file did not change.
+ *
  * If handling of cache headers is not required, it can be disabled with {@link io.vertx.ext.web.handler.StaticHandler#setCachingEnabled(boolean)}.
  *
  * When cache handling is enabled Vert.x-Web will cache the last modified date of resources in memory, this avoids a disk hit
@@ -1069,6 +1171,47 @@
  *
  * To configure the expiry time of cache entries you can use {@link io.vertx.ext.web.handler.StaticHandler#setCacheEntryTimeout(long)}.
  *
+ * Alternatively the handler can watch the files for changes with {@link io.vertx.ext.web.handler.StaticHandler#setWatchFiles(boolean)}.
+ * Cache entries then never expire, they are dropped as soon as the file changes on disk, so serving a cached file
+ * doesn't touch the file system at all. A web root on the file system is watched with a `java.nio.file.WatchService`,
+ * files that cannot be watched this way, like files served from the classpath, are checked in the background every
+ * cache entry timeout instead.
+ *
+ * === Caching file content in memory
+ *
+ * Files are normally sent with `sendFile`, which opens the file for each request. Small files that are served often
+ * can instead be kept in memory by giving the handler a budget of bytes with
+ * {@link io.vertx.ext.web.handler.StaticHandler#setContentCacheMaxBytes(long)}:
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#staticContentCache}
+ * ----
+ *
+ * Only files no larger than {@link io.vertx.ext.web.handler.StaticHandler#setContentCacheMaxFileSize(long)} are
+ * cached, when the budget is exhausted the least recently served files are evicted. Cached content is served along
+ * with the properties in the cache described above, and it is dropped when the size or last modified date of the
+ * file read again from disk does not match. With {@link io.vertx.ext.web.handler.StaticHandler#setContentCacheOffHeap(boolean)}
+ * the content is held in direct buffers instead of the Java heap.
+ *
+ * The number of hits, misses, evictions and cached bytes is returned by
+ * {@link io.vertx.ext.web.handler.StaticHandler#contentCacheStats()}.
+ *
+ * === Serving precompressed files
+ *
+ * Assets like scripts and style sheets are often compressed when they are built, to save compressing them on every
+ * request. With {@link io.vertx.ext.web.handler.StaticHandler#setServePrecompressed(boolean)} the handler looks for
+ * siblings of the requested file with a `.br` or `.gz` extension and sends the one matching the `accept-encoding` header
+ * of the request, brotli being preferred for the same weight, with the `content-encoding` header set:
+ *
+ * [source,$lang]
+ * ----
+ * {@link examples.WebExamples#staticPrecompressed}
+ * ----
+ *
+ * The siblings are looked up when the properties of the file are read and cached along with them, so negotiating the
+ * encoding doesn't cost any file system access. Siblings older than the file are ignored.
+ *
  * === Configuring the index page
  *
  * Any requests to the root path `/` will cause the index page to be served. By default the index page is `index.html`.
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web;
+
+import io.vertx.ext.web.impl.ConcurrentBoundedCache;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBoundedCacheTest {
+
+  @Test
+  public void testGetPut() {
+    ConcurrentBoundedCache<String, String> cache = new ConcurrentBoundedCache<>(10);
+    assertNull(cache.get("foo"));
+    cache.put("foo", "bar");
+    assertEquals("bar", cache.get("foo"));
+    cache.put("foo", "baz");
+    assertEquals("baz", cache.get("foo"));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.hits());
+    assertEquals(1, cache.misses());
+    assertEquals(0, cache.evictions());
+  }
+
+  @Test
+  public void testGetWithFunction() {
+    ConcurrentBoundedCache<String, String> cache = new ConcurrentBoundedCache<>(10);
+    assertEquals("FOO", cache.get("foo", String::toUpperCase));
+    assertEquals("FOO", cache.get("foo", k -> "wrong"));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+  }
+
+  @Test
+  public void testBounded() {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(10);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(10, cache.size());
+    assertEquals(90, cache.evictions());
+    // oldest entries go first
+    for (int i = 90; i < 100; i++) {
+      assertEquals(Integer.valueOf(i), cache.get(i));
+    }
+  }
+
+  @Test
+  public void testReadEntriesSurvive() {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(10);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, i);
+    }
+    cache.get(0);
+    cache.put(10, 10);
+    assertEquals(Integer.valueOf(0), cache.get(0));
+    assertNull(cache.get(1));
+  }
+
+  @Test
+  public void testRemoveClear() {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(10);
+    cache.put(1, 1);
+    cache.put(2, 2);
+    assertEquals(Integer.valueOf(1), cache.remove(1));
+    assertNull(cache.remove(1));
+    assertEquals(1, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.get(2));
+  }
+
+  @Test
+  public void testRemovedEntriesNotEvicted() {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(10);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+      if (i % 2 == 0) {
+        assertEquals(Integer.valueOf(i), cache.remove(i));
+      }
+    }
+    assertEquals(10, cache.size());
+    // only the entries left behind by the removed ones are evicted
+    assertEquals(490, cache.evictions());
+    Set<Integer> keys = new HashSet<>();
+    cache.forEach((k, v) -> keys.add(k));
+    assertEquals(new HashSet<>(Arrays.asList(981, 983, 985, 987, 989, 991, 993, 995, 997, 999)), keys);
+    // a re-added key goes to the back of the eviction order
+    cache.remove(981);
+    cache.put(981, 981);
+    cache.put(1000, 1000);
+    assertEquals(10, cache.size());
+    assertNull(cache.get(983));
+    assertEquals(Integer.valueOf(981), cache.get(981));
+  }
+
+  @Test
+  public void testStats() {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(1);
+    cache.put(1, 1);
+    cache.put(2, 2);
+    cache.get(2);
+    cache.get(1);
+    assertEquals(1, (int) cache.stats().getInteger("size"));
+    assertEquals(1, (int) cache.stats().getInteger("maxSize"));
+    assertEquals(1, (long) cache.stats().getLong("hits"));
+    assertEquals(1, (long) cache.stats().getLong("misses"));
+    assertEquals(1, (long) cache.stats().getLong("evictions"));
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(100);
+    int threads = 8;
+    CountDownLatch latch = new CountDownLatch(threads);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int t = 0; t < threads; t++) {
+      int offset = t;
+      new Thread(() -> {
+        try {
+          for (int i = 0; i < 10000; i++) {
+            int key = (i * 7 + offset) % 500;
+            Integer value = cache.get(key, k -> k);
+            if (value != key) {
+              throw new AssertionError("Wrong value " + value + " for " + key);
+            }
+          }
+        } catch (Throwable e) {
+          failure.set(e);
+        } finally {
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+    assertNull(failure.get());
+    assertTrue(cache.size() <= 100 + threads);
+    assertEquals(threads * 10000, cache.hits() + cache.misses());
+  }
+
+  @Test
+  public void testConcurrentClear() throws Exception {
+    ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(10);
+    int threads = 4;
+    CountDownLatch latch = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      int offset = t;
+      new Thread(() -> {
+        try {
+          for (int i = 0; i < 10000; i++) {
+            cache.put(i * threads + offset, i);
+            if (i % 100 == 0) {
+              cache.clear();
+            }
+          }
+        } finally {
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+    // the entries left by racing puts and clears can still be evicted
+    for (int i = -1; i > -100; i--) {
+      cache.put(i, i);
+    }
+    assertEquals(10, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new ConcurrentBoundedCache<>(0);
+  }
+}
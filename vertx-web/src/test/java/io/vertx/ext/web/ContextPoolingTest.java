@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class ContextPoolingTest extends WebTestBase {
+
+  @Test
+  public void testContextRecycled() throws Exception {
+    router.contextPooling(true);
+    List<RoutingContext> contexts = new ArrayList<>();
+    router.route().handler(rc -> {
+      contexts.add(rc);
+      assertNull(rc.get("foo"));
+      assertTrue(rc.pathParams().isEmpty());
+      assertFalse(rc.failed());
+      rc.put("foo", "bar");
+      rc.next();
+    });
+    router.get("/fail/:id").handler(rc -> rc.fail(400));
+    router.get("/ok/:id").handler(rc -> {
+      int handlerID = rc.addBodyEndHandler(v -> fail("removed"));
+      rc.addBodyEndHandler(v -> rc.put("ended", true));
+      rc.removeBodyEndHandler(handlerID);
+      rc.response().end(rc.pathParam("id") + rc.request().getParam("id"));
+    });
+    testRequest(HttpMethod.GET, "/ok/1", 200, "OK", "11");
+    testRequest(HttpMethod.GET, "/fail/2", 400, "Bad Request");
+    testRequest(HttpMethod.GET, "/ok/3", 200, "OK", "33");
+    assertEquals(3, contexts.size());
+    assertSame(contexts.get(0), contexts.get(1));
+    assertSame(contexts.get(0), contexts.get(2));
+    // the body end handlers are called once the response is written
+    waitUntil(() -> Boolean.TRUE.equals(contexts.get(2).get("ended")));
+  }
+
+  @Test
+  public void testContextWithBodyRecycled() throws Exception {
+    router.contextPooling(true);
+    List<RoutingContext> contexts = new ArrayList<>();
+    router.route().handler(BodyHandler.create());
+    router.route().handler(rc -> {
+      contexts.add(rc);
+      rc.response().end(rc.getBodyAsString());
+    });
+    testRequest(HttpMethod.POST, "/", req -> req.setChunked(true).write(Buffer.buffer("foo")), 200, "OK", "foo");
+    testRequest(HttpMethod.POST, "/", req -> req.setChunked(true).write(Buffer.buffer("bar")), 200, "OK", "bar");
+    assertSame(contexts.get(0), contexts.get(1));
+  }
+
+  @Test
+  public void testContextRecycledWithResponseBodyEndHandler() throws Exception {
+    router.contextPooling(true);
+    List<RoutingContext> contexts = new ArrayList<>();
+    List<String> ended = new ArrayList<>();
+    router.route().handler(rc -> {
+      contexts.add(rc);
+      rc.addBodyEndHandler(v -> ended.add("context"));
+      // replaces the handler of the context, as without pooling
+      rc.response().bodyEndHandler(v -> ended.add("response"));
+      rc.response().end();
+    });
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    assertSame(contexts.get(0), contexts.get(1));
+    waitUntil(() -> ended.size() == 2);
+    assertEquals(Arrays.asList("response", "response"), ended);
+  }
+
+  @Test
+  public void testHeaderTooLongRecycled() throws Exception {
+    router.contextPooling(true);
+    router.route().handler(rc -> rc.response().end());
+    char[] longChars = new char[201];
+    Arrays.fill(longChars, 'a');
+    String testHeaderValue = new String(longChars);
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("Accept", testHeaderValue), 400, "Bad Request", null);
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+  }
+
+  @Test
+  public void testInvalidPathFailedOnce() throws Exception {
+    testInvalidPathFailedOnce(false);
+  }
+
+  @Test
+  public void testInvalidPathFailedOncePooled() throws Exception {
+    testInvalidPathFailedOnce(true);
+  }
+
+  private void testInvalidPathFailedOnce(boolean pooling) throws Exception {
+    router.contextPooling(pooling);
+    AtomicInteger failures = new AtomicInteger();
+    router.route().handler(rc -> rc.response().end());
+    router.route().failureHandler(rc -> {
+      failures.incrementAndGet();
+      rc.next();
+    });
+    testRequest(HttpMethod.OPTIONS, "*", 404, "Not Found");
+    assertEquals(1, failures.get());
+  }
+
+  @Test
+  public void testContextNotPooled() throws Exception {
+    List<RoutingContext> contexts = new ArrayList<>();
+    router.route().handler(rc -> {
+      contexts.add(rc);
+      rc.response().end();
+    });
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    assertNotSame(contexts.get(0), contexts.get(1));
+  }
+
+  @Test
+  public void testLeakDetection() throws Exception {
+    Logger logger = Logger.getLogger("io.vertx.ext.web.impl.ContextPool");
+    Level level = logger.getLevel();
+    List<LogRecord> records = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+      @Override
+      public void flush() {
+      }
+      @Override
+      public void close() {
+      }
+    };
+    logger.setLevel(Level.FINE);
+    logger.addHandler(handler);
+    try {
+      router.contextPooling(true);
+      List<RoutingContext> contexts = new ArrayList<>();
+      router.route().handler(rc -> {
+        contexts.add(rc);
+        rc.response().end();
+      });
+      testRequest(HttpMethod.GET, "/", 200, "OK");
+      testRequest(HttpMethod.GET, "/", 200, "OK");
+      // released contexts are not recycled in this mode
+      assertNotSame(contexts.get(0), contexts.get(1));
+      waitUntil(() -> contexts.get(0).response().ended());
+      contexts.get(0).put("retained", true);
+      contexts.get(0).put("again", true);
+      assertEquals(1, records.size());
+      assertEquals(Level.SEVERE, records.get(0).getLevel());
+    } finally {
+      logger.removeHandler(handler);
+      logger.setLevel(level);
+    }
+  }
+}
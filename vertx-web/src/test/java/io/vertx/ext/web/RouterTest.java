@@ -19,14 +19,18 @@ package io.vertx.ext.web;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.impl.ParsableHeaderValuesContainer;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -366,6 +370,215 @@ public class RouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, path, 200, "OK", "bananasapplesoranges");
   }
 
+  @Test
+  public void testOrderingWithManyRoutes() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      router.route("/other" + i).handler(rc -> rc.response().end("other"));
+      router.route("/other" + i + "/*").handler(rc -> rc.response().end("other"));
+      router.route("/other" + i + "/:id").handler(rc -> rc.response().end("other"));
+    }
+    router.route("/items/*").handler(rc -> {
+      rc.response().setChunked(true);
+      rc.response().write("a");
+      rc.next();
+    });
+    router.routeWithRegex("/it.*").handler(rc -> {
+      rc.response().write("b");
+      rc.next();
+    });
+    router.route("/items/:id").handler(rc -> {
+      rc.response().write("c");
+      rc.next();
+    });
+    router.route("/items").handler(rc -> rc.response().end("wrong"));
+    router.route("/items/42/").handler(rc -> {
+      rc.response().write("d");
+      rc.next();
+    });
+    router.route().handler(rc -> {
+      rc.response().write("e");
+      rc.next();
+    });
+    router.route("/item*").handler(rc -> rc.response().end("f"));
+    router.route("/items/42").order(-1).handler(rc -> {
+      rc.response().setChunked(true);
+      rc.response().write("0");
+      rc.next();
+    });
+    testRequest(HttpMethod.GET, "/items/42", 200, "OK", "0abcdef");
+    testRequest(HttpMethod.GET, "/items/7", 200, "OK", "abcef");
+    testRequest(HttpMethod.GET, "/items/", 200, "OK", "abwrong");
+    testRequest(HttpMethod.GET, "/other99/1", 200, "OK", "other");
+  }
+
+  @Test
+  public void testMethodsWithManyRoutes() throws Exception {
+    HttpMethod[] methods = {HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE};
+    for (int i = 0; i < 50; i++) {
+      for (HttpMethod method : methods) {
+        String body = method + "" + i;
+        router.route(method, "/res" + i).handler(rc -> rc.response().end(body));
+      }
+    }
+    router.route("/res7").method(HttpMethod.PATCH).method(HttpMethod.PUT).order(-1)
+      .handler(rc -> rc.response().end("patchOrPut"));
+    router.route("/res8").order(-1).handler(rc -> {
+      rc.response().setChunked(true).write("any");
+      rc.next();
+    });
+    testRequest(HttpMethod.GET, "/res7", 200, "OK", "GET7");
+    testRequest(HttpMethod.POST, "/res42", 200, "OK", "POST42");
+    testRequest(HttpMethod.DELETE, "/res0", 200, "OK", "DELETE0");
+    testRequest(HttpMethod.PUT, "/res7", 200, "OK", "patchOrPut");
+    testRequest(HttpMethod.PATCH, "/res7", 200, "OK", "patchOrPut");
+    testRequest(HttpMethod.PATCH, "/res6", 404, "Not Found");
+    testRequest(HttpMethod.PUT, "/res8", 200, "OK", "anyPUT8");
+  }
+
+  @Test
+  public void testMatchCache() throws Exception {
+    assertNull(router.matchCacheStats());
+    router.matchCache(100);
+    router.route("/foo/*").handler(rc -> rc.put("prefix", "a").next());
+    router.get("/foo/bar").handler(rc -> rc.response().end(rc.get("prefix") + "b"));
+    router.route("/foo/:id").produces("text/plain").handler(rc -> rc.response().end(rc.get("prefix") + rc.pathParam("id")));
+    testRequest(HttpMethod.GET, "/foo/bar", 200, "OK", "ab");
+    testRequest(HttpMethod.GET, "/foo//bar/", 200, "OK", "ab");
+    testRequest(HttpMethod.GET, "/foo/1", 200, "OK", "a1");
+    testRequest(HttpMethod.GET, "/foo/2", 200, "OK", "a2");
+    testRequestWithAccepts(HttpMethod.GET, "/foo/2", "application/json", 404, "Not Found");
+    testRequest(HttpMethod.POST, "/foo/bar", 200, "OK", "abar");
+    JsonObject stats = router.matchCacheStats();
+    assertEquals(5, (int) stats.getInteger("size"));
+    assertEquals(1, (long) stats.getLong("hits"));
+    assertEquals(5, (long) stats.getLong("misses"));
+    // changing the routes invalidates the cache
+    router.get("/foo/bar").order(-1).handler(rc -> rc.response().end("c"));
+    testRequest(HttpMethod.GET, "/foo/bar", 200, "OK", "c");
+    router.matchCache(0);
+    assertNull(router.matchCacheStats());
+    testRequest(HttpMethod.GET, "/foo/bar", 200, "OK", "c");
+  }
+
+  @Test
+  public void testMatchCacheSubRouter() throws Exception {
+    router.matchCache(100);
+    Router subRouter = Router.router(vertx);
+    subRouter.get("/bar").handler(rc -> rc.response().end("bar"));
+    subRouter.get("/baz").handler(rc -> rc.response().end("baz"));
+    router.mountSubRouter("/sub", subRouter);
+    router.get("/sub/other").handler(rc -> rc.response().end("other"));
+    for (int i = 0; i < 2; i++) {
+      testRequest(HttpMethod.GET, "/sub/bar", 200, "OK", "bar");
+      testRequest(HttpMethod.GET, "/sub/baz", 200, "OK", "baz");
+      testRequest(HttpMethod.GET, "/sub/other", 200, "OK", "other");
+      testRequest(HttpMethod.GET, "/sub/none", 404, "Not Found");
+      testRequest(HttpMethod.GET, "/bar", 404, "Not Found");
+    }
+    assertEquals(5, (long) router.matchCacheStats().getLong("hits"));
+  }
+
+  @Test
+  public void testFreeze() throws Exception {
+    Route route = router.route("/foo").handler(rc -> rc.response().end("foo"));
+    Router subRouter = Router.router(vertx);
+    subRouter.route("/bar").handler(rc -> rc.response().end("bar"));
+    router.mountSubRouter("/sub", subRouter);
+    router.freeze();
+    testRequest(HttpMethod.GET, "/foo", 200, "OK", "foo");
+    testRequest(HttpMethod.GET, "/sub/bar", 200, "OK", "bar");
+    assertIllegalState(() -> router.route("/other"));
+    assertIllegalState(() -> router.get("/other"));
+    assertIllegalState(() -> router.clear());
+    assertIllegalState(() -> router.mountSubRouter("/other", Router.router(vertx)));
+    assertIllegalState(route::disable);
+    assertIllegalState(route::remove);
+    assertIllegalState(() -> route.path("/other"));
+    assertIllegalState(() -> route.handler(rc -> rc.response().end()));
+    assertIllegalState(() -> subRouter.route("/other"));
+    // already frozen
+    router.freeze();
+    assertEquals(2, router.getRoutes().size());
+    testRequest(HttpMethod.GET, "/foo", 200, "OK", "foo");
+  }
+
+  @Test
+  public void testFreezeRouterMountedInItself() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.mountSubRouter("/sub", subRouter);
+    subRouter.mountSubRouter("/loop", router);
+    assertIllegalState(router::freeze);
+  }
+
+  @Test
+  public void testFreezeMutuallyMountedRoutersConcurrently() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.mountSubRouter("/sub", subRouter);
+    subRouter.mountSubRouter("/loop", router);
+    CountDownLatch latch = new CountDownLatch(2);
+    for (Router r : Arrays.asList(router, subRouter)) {
+      new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          assertIllegalState(r::freeze);
+        }
+        latch.countDown();
+      }).start();
+    }
+    awaitLatch(latch);
+  }
+
+  private void assertIllegalState(Runnable runnable) {
+    try {
+      runnable.run();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // OK
+    }
+  }
+
+  @Test
+  public void testManyRegexRoutes() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      String version = "v" + i;
+      router.routeWithRegex("\\/api\\/" + version + "\\/(\\w+)")
+        .handler(rc -> rc.response().end(version + ":" + rc.request().getParam("param0")));
+    }
+    router.routeWithRegex("/api/v(1|2)/special").handler(rc -> rc.response().end("special"));
+    router.routeWithRegex(".*/first").order(-1).handler(rc -> rc.response().end("first"));
+    testRequest(HttpMethod.GET, "/api/v42/foo", 200, "OK", "v42:foo");
+    testRequest(HttpMethod.GET, "/api/v4/foo", 200, "OK", "v4:foo");
+    testRequest(HttpMethod.GET, "/api/v2/special", 200, "OK", "v2:special");
+    testRequest(HttpMethod.GET, "/api/v42/first", 200, "OK", "first");
+    testRequest(HttpMethod.GET, "/api/vx/foo", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/api/v4/foo/bar", 404, "Not Found");
+  }
+
+  @Test
+  public void testChangePathAfterHandler() throws Exception {
+    Route route = router.route("/foo").handler(rc -> rc.response().end());
+    testRequest(HttpMethod.GET, "/foo", 200, "OK");
+    route.path("/bar/:id");
+    testRequest(HttpMethod.GET, "/foo", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/bar/1", 200, "OK");
+    route.path("/foo");
+    testRequest(HttpMethod.GET, "/bar/1", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/foo", 200, "OK");
+  }
+
+  @Test
+  public void testChangeRouteAfterRequest() throws Exception {
+    Route route = router.route("/foo").handler(rc -> rc.response().end("first"));
+    testRequest(HttpMethod.GET, "/foo", 200, "OK", "first");
+    route.method(HttpMethod.POST);
+    testRequest(HttpMethod.GET, "/foo", 404, "Not Found");
+    testRequest(HttpMethod.POST, "/foo", 200, "OK", "first");
+    route.handler(rc -> rc.response().end("second"));
+    testRequest(HttpMethod.POST, "/foo", 200, "OK", "second");
+    route.produces("text/html");
+    testRequestWithAccepts(HttpMethod.POST, "/foo", "application/json", 404, "Not Found");
+    testRequestWithAccepts(HttpMethod.POST, "/foo", "text/html", 200, "OK");
+  }
+
   @Test
   public void testLast() throws Exception {
     String path = "/blah";
@@ -677,6 +890,41 @@ public class RouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, path, req -> req.putHeader("Content-Type", testHeaderValue), 400, "Bad Request", null);
   }
 
+  @Test
+  public void testParsedHeadersShared() throws Exception {
+    String accept = "text/html;q=0.5, application/json, " + UUID.randomUUID();
+    AtomicReference<List<MIMEHeader>> first = new AtomicReference<>();
+    router.route().handler(rc -> {
+      List<MIMEHeader> parsed = rc.parsedHeaders().accept();
+      assertEquals("application/json", parsed.get(0).rawValue());
+      if (!first.compareAndSet(null, parsed)) {
+        assertSame(first.get(), parsed);
+      }
+      try {
+        parsed.clear();
+        fail();
+      } catch (UnsupportedOperationException ignore) {
+        // expected
+      }
+      rc.response().end();
+    });
+    long hits = ParsableHeaderValuesContainer.cacheStats().getJsonObject("Accept").getLong("hits");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("Accept", accept), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("Accept", accept), 200, "OK", null);
+    assertTrue(ParsableHeaderValuesContainer.cacheStats().getJsonObject("Accept").getLong("hits") > hits);
+  }
+
+  @Test
+  public void testHeaderTooLongNegotiated() throws Exception {
+    char[] longChars = new char[201];
+    Arrays.fill(longChars, 'a');
+    String testHeaderValue = new String(longChars);
+    router.route("/produces").produces("application/json").handler(rc -> rc.response().end());
+    router.route("/consumes").consumes("application/json").handler(rc -> rc.response().end());
+    testRequest(HttpMethod.GET, "/produces", req -> req.putHeader("Accept", testHeaderValue), 400, "Bad Request", null);
+    testRequest(HttpMethod.GET, "/consumes", req -> req.putHeader("Content-Type", testHeaderValue), 400, "Bad Request", null);
+  }
+
   @Test
   public void testPattern1() throws Exception {
     router.route("/:abc").handler(rc -> {
@@ -1096,6 +1344,18 @@ public class RouterTest extends WebTestBase {
     testRequestWithAccepts(HttpMethod.GET, "/foo", "application/blah", 404, "Not Found");
   }
 
+  @Test
+  public void testProducesNegotiatedRepeatedly() throws Exception {
+    router.route().produces("text/html").produces("application/json").produces("application/xml").handler(rc ->
+      rc.response().setStatusMessage(rc.getAcceptableContentType()).end());
+    String browser = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+    for (int i = 0; i < 3; i++) {
+      testRequestWithAccepts(HttpMethod.GET, "/foo", browser, 200, "text/html");
+      testRequestWithAccepts(HttpMethod.GET, "/foo", "application/json;q=0.5, application/xml", 200, "application/xml");
+      testRequestWithAccepts(HttpMethod.GET, "/foo", "text/json", 404, "Not Found");
+    }
+  }
+
   @Test
   public void testProducesWithQParameterIgnored() throws Exception {
     router.route().produces("text/html;q").produces("text/html;q=0.1").handler(rc -> rc.response().end());
@@ -1931,6 +2191,25 @@ public class RouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("Accept-Language", "pt;q=0.9, en-gb;q=0.9"), 200, "OK", null);
   }
 
+  @Test
+  public void testAcceptableLanguagesModifiable() throws Exception {
+    router.route().handler(rc -> {
+      List<LanguageHeader> languages = rc.acceptableLanguages();
+      languages.sort(Comparator.comparing(LanguageHeader::value));
+      assertEquals("da", languages.get(0).value());
+      List<Locale> locales = rc.acceptableLocales();
+      locales.remove(0);
+      assertEquals(2, locales.size());
+      // the parsed header is left untouched
+      assertEquals(3, rc.parsedHeaders().acceptLanguage().size());
+      assertEquals("pt", rc.preferredLanguage().value());
+      rc.response().end();
+    });
+
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("Accept-Language", "pt, en-gb;q=0.8, da;q=0.7"), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("Accept-Language", "pt, en-gb;q=0.8, da;q=0.7"), 200, "OK", null);
+  }
+
   @Test
   public void testLocaleNoHeaderFromClient() throws Exception {
     router.route().handler(rc -> {
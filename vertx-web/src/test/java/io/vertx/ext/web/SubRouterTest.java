@@ -17,6 +17,7 @@
 package io.vertx.ext.web;
 
 import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.impl.Utils;
 import org.junit.Test;
 
 /**
@@ -459,4 +460,96 @@ public class SubRouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, "//api//", 200, "sausages");
   }
 
+  @Test
+  public void testNormalised5() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.mountSubRouter("/api", subRouter);
+    subRouter.route("/foo/*").handler(rc -> {
+      rc.response().setStatusMessage("prefix").end();
+    });
+    subRouter.route("/items/:id").handler(rc -> {
+      rc.response().setStatusMessage(rc.pathParam("id")).end();
+    });
+    testRequest(HttpMethod.GET, "/api/foo", 200, "prefix");
+    testRequest(HttpMethod.GET, "/api/foo/", 200, "prefix");
+    testRequest(HttpMethod.GET, "//api//foo//bar", 200, "prefix");
+    testRequest(HttpMethod.GET, "/api/fo", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/api/foobar", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/api/items/42", 200, "42");
+    testRequest(HttpMethod.GET, "//api//items//42", 200, "42");
+  }
+
+  @Test
+  public void testNestedMountPointAndPathOffset() throws Exception {
+    Router subRouter = Router.router(vertx);
+    Router subSubRouter = Router.router(vertx);
+    router.mountSubRouter("/api", subRouter);
+    subRouter.mountSubRouter("/v1/", subSubRouter);
+    subSubRouter.route("/items/:id").handler(rc -> {
+      assertEquals("/api/v1", rc.mountPoint());
+      rc.response().setStatusMessage(rc.pathParam("id")).end();
+    });
+    subSubRouter.route("/static/*").handler(rc -> {
+      assertEquals("/api/v1", rc.mountPoint());
+      rc.response().setStatusMessage(Utils.pathOffset(rc.request().path(), rc)).end();
+    });
+    subRouter.route("/other").handler(rc -> {
+      assertEquals("/api", rc.mountPoint());
+      rc.response().setStatusMessage("other").end();
+    });
+    testRequest(HttpMethod.GET, "/api/v1/items/42", 200, "42");
+    testRequest(HttpMethod.GET, "/api/v1/static/css/app.css", 200, "/css/app.css");
+    testRequest(HttpMethod.GET, "/api/other", 200, "other");
+    testRequest(HttpMethod.GET, "/v1/items/42", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/api/v1other/items/42", 404, "Not Found");
+  }
+
+  @Test
+  public void testSubRouterChangedAfterMount() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.mountSubRouter("/api", subRouter);
+    testRequest(HttpMethod.GET, "/api/foo", 404, "Not Found");
+    Route route = subRouter.route("/foo").handler(rc -> rc.response().setStatusMessage("foo").end());
+    testRequest(HttpMethod.GET, "/api/foo", 200, "foo");
+    route.disable();
+    testRequest(HttpMethod.GET, "/api/foo", 404, "Not Found");
+    route.enable();
+    testRequest(HttpMethod.GET, "/api/foo", 200, "foo");
+    subRouter.clear();
+    testRequest(HttpMethod.GET, "/api/foo", 404, "Not Found");
+  }
+
+  @Test
+  public void testSubRouterMountedWithTrailingSlash() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.mountSubRouter("/sub/", subRouter);
+    subRouter.route().handler(rc -> rc.response().setStatusMessage(rc.mountPoint()).end());
+    testRequest(HttpMethod.GET, "/sub", 200, "/sub");
+    testRequest(HttpMethod.GET, "/sub/foo", 200, "/sub");
+    testRequest(HttpMethod.GET, "/subway", 404, "Not Found");
+  }
+
+  @Test
+  public void testParentRoutesAfterSubRouter() throws Exception {
+    Router subRouter = Router.router(vertx);
+    router.route().handler(rc -> {
+      rc.put("order", "a");
+      rc.next();
+    });
+    router.mountSubRouter("/api", subRouter);
+    subRouter.route("/foo").handler(rc -> {
+      rc.put("order", rc.get("order") + "b");
+      rc.next();
+    });
+    subRouter.route("/foo").handler(rc -> {
+      rc.put("order", rc.get("order") + "c");
+      rc.next();
+    });
+    router.route("/api/foo").handler(rc -> {
+      assertNull(rc.mountPoint());
+      rc.response().setStatusMessage(rc.get("order") + "d").end();
+    });
+    testRequest(HttpMethod.GET, "/api/foo", 200, "abcd");
+  }
+
 }
@@ -20,6 +20,7 @@ import io.vertx.ext.web.impl.Utils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -108,6 +109,24 @@ public class UtilsTest {
     assertEquals("/..%2Fblah", Utils.normalizePath("/%2E%2E%2Fblah"));
   }
 
+  @Test
+  public void testCleanPathNotCopied() throws Exception {
+    String path = "/api/v1/users/42";
+    assertSame(path, Utils.normalizePath(path));
+    assertSame(path, Utils.removeDots(path));
+    path = "/.well-known/foo..bar/.../";
+    assertSame(path, Utils.normalizePath(path));
+  }
+
+  @Test
+  public void testDotSegments() throws Exception {
+    assertEquals("/foo/", Utils.normalizePath("/foo/."));
+    assertEquals("/", Utils.normalizePath("/foo/.."));
+    assertEquals("/foo/bar", Utils.normalizePath("/foo/./bar"));
+    assertEquals("/foo/.bar", Utils.normalizePath("/foo/.bar"));
+    assertEquals("/foo/..bar", Utils.normalizePath("/foo/..bar"));
+  }
+
   @Test
   public void testTrailingSlash() throws Exception {
     assertEquals("/blah/", Utils.normalizePath("/blah/"));
@@ -156,6 +175,14 @@ public class UtilsTest {
     assertEquals("/b/", Utils.normalizePath("/b/c/.."));
   }
 
+  @Test
+  public void testRFC1123DateTime() throws Exception {
+    assertEquals("Tue, 03 Jun 2008 11:05:30 GMT", Utils.formatRFC1123DateTime(1212491130000L));
+    assertEquals(1212491130000L, Utils.parseRFC1123DateTime("Tue, 03 Jun 2008 11:05:30 GMT"));
+    assertEquals(1212491130000L, Utils.parseRFC1123DateTime(Utils.createRFC1123DateTimeFormatter().format(1212491130000L)));
+    assertEquals(-1, Utils.parseRFC1123DateTime("yesterday"));
+  }
+
   @Test
   public void testSockJSEscape() throws Exception {
     assertEquals("[\"x\"]", Utils.urlDecode("%5B%22x%22%5D", true));
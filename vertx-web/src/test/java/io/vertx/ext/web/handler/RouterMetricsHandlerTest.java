@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.WebTestBase;
+import org.junit.Test;
+
+public class RouterMetricsHandlerTest extends WebTestBase {
+
+  @Test
+  public void testMetrics() throws Exception {
+    router.metrics(true);
+    router.route("/foo").consumes("text/plain").handler(rc -> rc.response().end());
+    router.get("/foo").handler(rc -> rc.response().end());
+    router.get("/fail").handler(rc -> {
+      throw new RuntimeException("expected");
+    });
+    router.get("/metrics").handler(rc -> {
+      JsonObject snapshot = router.metricsSnapshot();
+      JsonArray routes = snapshot.getJsonArray("routes");
+      assertEquals(5, routes.size());
+      JsonObject consumes = routes.getJsonObject(0);
+      assertEquals("/foo", consumes.getString("path"));
+      assertEquals(0L, (long) consumes.getLong("invocations"));
+      assertEquals(2L, (long) consumes.getLong("notMatched"));
+      JsonObject foo = routes.getJsonObject(1);
+      assertEquals(new JsonArray().add("GET"), foo.getJsonArray("methods"));
+      assertEquals(2L, (long) foo.getLong("invocations"));
+      assertEquals(0L, (long) foo.getLong("failures"));
+      JsonObject handlerTime = foo.getJsonObject("handlerTime");
+      assertEquals(2L, (long) handlerTime.getLong("count"));
+      assertTrue(handlerTime.getLong("min") > 0);
+      assertTrue(handlerTime.getLong("min") <= handlerTime.getLong("p50"));
+      assertTrue(handlerTime.getLong("p50") <= handlerTime.getLong("max"));
+      JsonObject fail = routes.getJsonObject(2);
+      assertEquals(1L, (long) fail.getLong("invocations"));
+      assertEquals(1L, (long) fail.getLong("failures"));
+      // one lookup per request so far, another one to route the failure of /fail
+      assertEquals(5L, (long) snapshot.getJsonObject("matching").getLong("count"));
+      rc.next();
+    });
+    router.get("/metrics").handler(RouterMetricsHandler.create(router));
+    testRequest(HttpMethod.GET, "/foo", 200, "OK");
+    testRequest(HttpMethod.GET, "/foo", 200, "OK");
+    testRequest(HttpMethod.GET, "/fail", 500, "Internal Server Error");
+    testRequest(HttpMethod.GET, "/metrics", null, resp -> {
+      assertEquals("application/json", resp.getHeader("Content-Type"));
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testMetricsDisabled() throws Exception {
+    router.get("/foo").handler(rc -> rc.response().end());
+    router.get("/metrics").handler(RouterMetricsHandler.create(router));
+    testRequest(HttpMethod.GET, "/foo", 200, "OK");
+    assertNull(router.metricsSnapshot());
+    testRequest(HttpMethod.GET, "/metrics", 200, "OK", "{}");
+  }
+
+  @Test
+  public void testSubRouterMetrics() throws Exception {
+    Router subRouter = Router.router(vertx);
+    subRouter.metrics(true);
+    subRouter.get("/foo").handler(rc -> rc.response().end());
+    router.mountSubRouter("/api", subRouter);
+    router.get("/check").handler(rc -> {
+      JsonObject route = subRouter.metricsSnapshot().getJsonArray("routes").getJsonObject(0);
+      assertEquals(1L, (long) route.getLong("invocations"));
+      rc.response().end();
+    });
+    testRequest(HttpMethod.GET, "/api/foo", 200, "OK");
+    testRequest(HttpMethod.GET, "/check", 200, "OK");
+    subRouter.metrics(false);
+    assertNull(subRouter.metricsSnapshot());
+  }
+}
@@ -16,14 +16,29 @@
 
 package io.vertx.ext.web.handler;
 
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.FileSystem;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.impl.VertxInternal;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.impl.RoutingContextDecorator;
 import io.vertx.ext.web.impl.Utils;
 import io.vertx.ext.web.WebTestBase;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.util.Arrays;
 import java.util.Date;
@@ -32,6 +47,9 @@ import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.Assume.assumeTrue;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -260,6 +278,15 @@ public class StaticHandlerTest extends WebTestBase {
     }, 200, "OK", "<html><body>Other page</body></html>");
   }
 
+  @Test
+  public void testCacheEviction() throws Exception {
+    stat.setMaxCacheSize(1);
+    for (int i = 0; i < 3; i++) {
+      testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+      testRequest(HttpMethod.GET, "/somedir/otherpage.html", 200, "OK", "<html><body>Subdirectory other page</body></html>");
+    }
+  }
+
   @Test
   public void testGetOtherPageTwice() throws Exception {
     testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
@@ -660,6 +687,472 @@ public class StaticHandlerTest extends WebTestBase {
     }, 200, "OK", "<html><body>Other page</body></html>");
   }
 
+  @Test
+  public void testContentCache() throws Exception {
+    stat.setContentCacheMaxBytes(1024);
+    for (int i = 0; i < 2; i++) {
+      testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+        assertTrue(res.headers().get("content-type").startsWith("text/html;charset="));
+        assertEquals("36", res.headers().get("content-length"));
+        assertNotNull(res.headers().get("last-modified"));
+      }, 200, "OK", "<html><body>Other page</body></html>");
+    }
+    JsonObject stats = stat.contentCacheStats();
+    assertEquals(1, (int) stats.getInteger("size"));
+    assertEquals(36L, (long) stats.getLong("bytes"));
+    assertEquals(1L, (long) stats.getLong("hits"));
+    assertEquals(1L, (long) stats.getLong("misses"));
+  }
+
+  @Test
+  public void testContentCacheDisabled() throws Exception {
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    assertNull(stat.contentCacheStats());
+  }
+
+  @Test
+  public void testContentCacheOffHeap() throws Exception {
+    stat.setContentCacheMaxBytes(1024).setContentCacheOffHeap(true);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    assertEquals(1L, (long) stat.contentCacheStats().getLong("hits"));
+  }
+
+  @Test
+  public void testContentCacheRange() throws Exception {
+    stat.setContentCacheMaxBytes(1024 * 1024);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", 200, "OK");
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.headers().set("Range", "bytes=1000-1999");
+    }, res -> {
+      assertEquals("1000", res.headers().get("Content-Length"));
+      assertEquals("bytes 1000-1999/15783", res.headers().get("Content-Range"));
+      res.bodyHandler(buff -> {
+        assertEquals(1000, buff.length());
+        testComplete();
+      });
+    }, 206, "Partial Content", null);
+    await();
+    assertEquals(1L, (long) stat.contentCacheStats().getLong("hits"));
+  }
+
+  @Test
+  public void testContentCacheEviction() throws Exception {
+    stat.setContentCacheMaxBytes(100);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/somedir/otherpage.html", 200, "OK", "<html><body>Subdirectory other page</body></html>");
+    testRequest(HttpMethod.GET, "/index.html", 200, "OK", "<html><body>Index page</body></html>");
+    JsonObject stats = stat.contentCacheStats();
+    assertEquals(1L, (long) stats.getLong("evictions"));
+    assertEquals(85L, (long) stats.getLong("bytes"));
+    // too large for the cache, sent from the file
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", 200, "OK");
+    assertEquals(2, (int) stat.contentCacheStats().getInteger("size"));
+  }
+
+  @Test
+  public void testContentCacheFileChanged() throws Exception {
+    File dir = Files.createTempDirectory("vertx").toFile();
+    dir.deleteOnExit();
+    File file = new File(dir, "page.html");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "before".getBytes());
+    router.clear();
+    stat = StaticHandler.create()
+      .setAllowRootFileSystemAccess(true)
+      .setWebRoot(dir.getAbsolutePath())
+      .setFilesReadOnly(false)
+      .setCacheEntryTimeout(100)
+      .setContentCacheMaxBytes(1024);
+    router.route().handler(stat);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "before");
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "before");
+    Files.write(file.toPath(), "after!!".getBytes());
+    Thread.sleep(101);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "after!!");
+    JsonObject stats = stat.contentCacheStats();
+    assertEquals(1L, (long) stats.getLong("hits"));
+    assertEquals(2L, (long) stats.getLong("misses"));
+    assertEquals(7L, (long) stats.getLong("bytes"));
+  }
+
+  @Test
+  public void testTrustedEntryNotStatted() throws Exception {
+    AtomicInteger fsCalls = new AtomicInteger();
+    useCountingFileSystem(fsCalls);
+    for (int i = 0; i < 3; i++) {
+      testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    }
+    // the file is only statted once, the files are read only by default
+    assertEquals(1, fsCalls.get());
+    // too large for the content cache
+    stat.setContentCacheMaxBytes(16);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    assertEquals(1, fsCalls.get());
+    // read once for the content cache
+    stat.setContentCacheMaxBytes(1024);
+    for (int i = 0; i < 3; i++) {
+      testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    }
+    assertEquals(2, fsCalls.get());
+  }
+
+  /**
+   * Route the requests to the static handler with a routing context whose file system counts the calls made to it.
+   */
+  private void useCountingFileSystem(AtomicInteger calls) {
+    FileSystem fs = vertx.fileSystem();
+    FileSystem countingFs = (FileSystem) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[]{FileSystem.class}, (proxy, method, args) -> {
+        calls.incrementAndGet();
+        return invoke(method, fs, args);
+      });
+    Vertx countingVertx = (Vertx) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[]{VertxInternal.class}, (proxy, method, args) ->
+        method.getName().equals("fileSystem") ? countingFs : invoke(method, vertx, args));
+    router.clear();
+    router.route().handler(rc -> stat.handle(new RoutingContextDecorator(rc.currentRoute(), rc) {
+      @Override
+      public Vertx vertx() {
+        return countingVertx;
+      }
+    }));
+  }
+
+  private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Test
+  public void testWatchFiles() throws Exception {
+    File dir = Files.createTempDirectory("vertx").toFile();
+    dir.deleteOnExit();
+    File file = new File(dir, "page.html");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "before".getBytes());
+    router.clear();
+    stat = StaticHandler.create()
+      .setAllowRootFileSystemAccess(true)
+      .setWebRoot(dir.getAbsolutePath())
+      .setFilesReadOnly(false)
+      .setWatchFiles(true)
+      .setContentCacheMaxBytes(1024);
+    router.route().handler(stat);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "before");
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "before");
+    assertEquals(1L, (long) stat.contentCacheStats().getLong("hits"));
+    Files.write(file.toPath(), "after".getBytes());
+    waitUntil(() -> stat.contentCacheStats().getInteger("size") == 0);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "after");
+    assertTrue(file.delete());
+    waitUntil(() -> stat.contentCacheStats().getInteger("size") == 0);
+    testRequest(HttpMethod.GET, "/page.html", 404, "Not Found");
+  }
+
+  @Test
+  public void testWatchFilesNewDirectory() throws Exception {
+    File dir = Files.createTempDirectory("vertx").toFile();
+    dir.deleteOnExit();
+    router.clear();
+    stat = StaticHandler.create()
+      .setAllowRootFileSystemAccess(true)
+      .setWebRoot(dir.getAbsolutePath())
+      .setWatchFiles(true)
+      .setContentCacheMaxBytes(1024);
+    router.route().handler(stat);
+    testRequest(HttpMethod.GET, "/sub/page.html", 404, "Not Found");
+    File sub = new File(dir, "sub");
+    assertTrue(sub.mkdir());
+    sub.deleteOnExit();
+    File file = new File(sub, "page.html");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "before".getBytes());
+    testRequest(HttpMethod.GET, "/sub/page.html", 200, "OK", "before");
+    // give the watcher time to watch the new directory
+    Thread.sleep(200);
+    Files.write(file.toPath(), "after".getBytes());
+    waitUntil(() -> stat.contentCacheStats().getInteger("size") == 0);
+    testRequest(HttpMethod.GET, "/sub/page.html", 200, "OK", "after");
+  }
+
+  @Test
+  public void testWatchFilesFromClasspath() throws Exception {
+    // the web root is on the classpath so the cached files are checked in the background
+    stat.setWatchFiles(true).setCacheEntryTimeout(100);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    Thread.sleep(250);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+  }
+
+  @Test
+  public void testWatchFilesStoppedOnUndeploy() throws Exception {
+    // the watch services are counted by their inotify instances
+    assumeTrue(new File("/proc/self/fd").isDirectory());
+    File dir = Files.createTempDirectory("vertx").toFile();
+    dir.deleteOnExit();
+    writeFile(new File(dir, "page.html"), "page");
+    long watchServices = watchServices();
+    CountDownLatch deployed = new CountDownLatch(1);
+    AtomicReference<String> deploymentID = new AtomicReference<>();
+    vertx.deployVerticle(new AbstractVerticle() {
+      @Override
+      public void start(Future<Void> startFuture) {
+        Router router = Router.router(vertx);
+        router.route().handler(StaticHandler.create()
+          .setAllowRootFileSystemAccess(true)
+          .setWebRoot(dir.getAbsolutePath())
+          .setWatchFiles(true));
+        vertx.createHttpServer().requestHandler(router::accept).listen(8081, "localhost",
+          onSuccess(server -> startFuture.complete()));
+      }
+    }, onSuccess(id -> {
+      deploymentID.set(id);
+      deployed.countDown();
+    }));
+    awaitLatch(deployed);
+    testRequestBuffer(client, HttpMethod.GET, 8081, "/page.html", null, null, 200, "OK", Buffer.buffer("page"));
+    assertEquals(watchServices + 1, watchServices());
+    CountDownLatch undeployed = new CountDownLatch(1);
+    vertx.undeploy(deploymentID.get(), onSuccess(v -> undeployed.countDown()));
+    awaitLatch(undeployed);
+    assertEquals(watchServices, watchServices());
+  }
+
+  private static long watchServices() throws IOException {
+    try (Stream<Path> fds = Files.list(Paths.get("/proc/self/fd"))) {
+      return fds.filter(fd -> {
+        try {
+          return Files.readSymbolicLink(fd).toString().equals("anon_inode:inotify");
+        } catch (IOException e) {
+          // closed meanwhile
+          return false;
+        }
+      }).count();
+    }
+  }
+
+  @Test
+  public void testNoETagByDefault() throws Exception {
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      assertNull(res.headers().get("etag"));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+  }
+
+  @Test
+  public void testWeakETag() throws Exception {
+    stat.setEnableETag(true);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      etag.set(res.headers().get("etag"));
+      assertTrue(etag.get().startsWith("W/\""));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> {
+      req.putHeader("if-none-match", "\"other\", " + etag.get());
+    }, res -> {
+      assertEquals(etag.get(), res.headers().get("etag"));
+    }, 304, "Not Modified", null);
+    // takes precedence over if-modified-since
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> {
+      req.putHeader("if-none-match", "\"other\"");
+      req.putHeader("if-modified-since", dateTimeFormatter.format(new Date()));
+    }, null, 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> {
+      req.putHeader("if-none-match", "*");
+    }, null, 304, "Not Modified", null);
+  }
+
+  @Test
+  public void testStrongETag() throws Exception {
+    stat.setEnableETag(true).setStrongETag(true);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", null, res -> {
+      etag.set(res.headers().get("etag"));
+      assertTrue(etag.get().startsWith("\""));
+    }, 200, "OK", null);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.putHeader("if-none-match", etag.get());
+    }, null, 304, "Not Modified", null);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.putHeader("Range", "bytes=0-999");
+      req.putHeader("If-Range", etag.get());
+    }, res -> {
+      assertEquals("1000", res.headers().get("Content-Length"));
+    }, 206, "Partial Content", null);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.putHeader("Range", "bytes=0-999");
+      req.putHeader("If-Range", "\"other\"");
+    }, res -> {
+      assertEquals("15783", res.headers().get("Content-Length"));
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testStrongETagFromContentCache() throws Exception {
+    stat.setEnableETag(true).setStrongETag(true).setContentCacheMaxBytes(1024);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      etag.set(res.headers().get("etag"));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      assertEquals(etag.get(), res.headers().get("etag"));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    assertEquals(1L, (long) stat.contentCacheStats().getLong("hits"));
+  }
+
+  @Test
+  public void testIfRangeDate() throws Exception {
+    AtomicReference<String> lastModified = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", null, res -> {
+      lastModified.set(res.headers().get("last-modified"));
+    }, 200, "OK", null);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.putHeader("Range", "bytes=0-999");
+      req.putHeader("If-Range", lastModified.get());
+    }, null, 206, "Partial Content", null);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
+      req.putHeader("Range", "bytes=0-999");
+      req.putHeader("If-Range", dateTimeFormatter.format(new Date(0)));
+    }, res -> {
+      assertEquals("15783", res.headers().get("Content-Length"));
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testInvalidIfModifiedSince() throws Exception {
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> {
+      req.putHeader("if-modified-since", "yesterday");
+    }, null, 200, "OK", "<html><body>Other page</body></html>");
+  }
+
+  @Test
+  public void testServePrecompressed() throws Exception {
+    File dir = precompressedWebRoot();
+    stat.setServePrecompressed(true);
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "gzip, deflate, br");
+    }, res -> {
+      assertEquals("br", res.headers().get("content-encoding"));
+      assertEquals("accept-encoding", res.headers().get("vary"));
+      assertEquals("application/javascript", res.headers().get("content-type"));
+    }, 200, "OK", "brotli");
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br;q=0.5, gzip");
+    }, res -> {
+      assertEquals("gzip", res.headers().get("content-encoding"));
+    }, 200, "OK", "gzip");
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br;q=0");
+    }, res -> {
+      assertNull(res.headers().get("content-encoding"));
+    }, 200, "OK", "var app;");
+    testRequest(HttpMethod.GET, "/app.js", null, res -> {
+      assertNull(res.headers().get("content-encoding"));
+      assertEquals("accept-encoding", res.headers().get("vary"));
+    }, 200, "OK", "var app;");
+    // older than the file it was compressed from
+    new File(dir, "app.js.br").setLastModified(new File(dir, "app.js").lastModified() - 10000);
+    stat.setMaxCacheSize(1);
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br, gzip");
+    }, res -> {
+      assertEquals("gzip", res.headers().get("content-encoding"));
+    }, 200, "OK", "gzip");
+  }
+
+  @Test
+  public void testServePrecompressedDisabled() throws Exception {
+    precompressedWebRoot();
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "gzip, deflate, br");
+    }, res -> {
+      assertNull(res.headers().get("content-encoding"));
+    }, 200, "OK", "var app;");
+  }
+
+  @Test
+  public void testServePrecompressedETag() throws Exception {
+    precompressedWebRoot();
+    stat.setServePrecompressed(true).setEnableETag(true);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+    }, res -> {
+      etag.set(res.headers().get("etag"));
+      assertTrue(etag.get().endsWith("-br\""));
+    }, 200, "OK", "brotli");
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+      req.putHeader("if-none-match", etag.get());
+    }, null, 304, "Not Modified", null);
+    // the identity representation has another tag
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("if-none-match", etag.get());
+    }, null, 200, "OK", "var app;");
+  }
+
+  @Test
+  public void testServePrecompressedStrongETag() throws Exception {
+    File dir = precompressedWebRoot();
+    stat.setServePrecompressed(true).setEnableETag(true).setStrongETag(true).setFilesReadOnly(false)
+      .setWatchFiles(true);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+    }, res -> {
+      etag.set(res.headers().get("etag"));
+      assertFalse(etag.get().startsWith("W/"));
+    }, 200, "OK", "brotli");
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+      req.putHeader("Range", "bytes=0-2");
+      req.putHeader("If-Range", etag.get());
+    }, null, 206, "Partial Content", "bro");
+    // compressed again, the file it was compressed from did not change
+    writeFile(new File(dir, "app.js.br"), "BROTLI");
+    AtomicReference<String> newETag = new AtomicReference<>(etag.get());
+    long start = System.currentTimeMillis();
+    while (newETag.get().equals(etag.get())) {
+      assertTrue("The tag did not change", System.currentTimeMillis() - start < 10000);
+      Thread.sleep(20);
+      testRequest(HttpMethod.GET, "/app.js", req -> {
+        req.putHeader("accept-encoding", "br");
+      }, res -> {
+        newETag.set(res.headers().get("etag"));
+      }, 200, "OK", null);
+    }
+    // the client has the old content, it gets all of the new one
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+      req.putHeader("Range", "bytes=0-2");
+      req.putHeader("If-Range", etag.get());
+    }, null, 200, "OK", "BROTLI");
+    testRequest(HttpMethod.GET, "/app.js", req -> {
+      req.putHeader("accept-encoding", "br");
+      req.putHeader("Range", "bytes=0-2");
+      req.putHeader("If-Range", newETag.get());
+    }, null, 206, "Partial Content", "BRO");
+  }
+
+  private File precompressedWebRoot() throws Exception {
+    File dir = Files.createTempDirectory("vertx").toFile();
+    dir.deleteOnExit();
+    writeFile(new File(dir, "app.js"), "var app;");
+    writeFile(new File(dir, "app.js.br"), "brotli");
+    writeFile(new File(dir, "app.js.gz"), "gzip");
+    stat.setAllowRootFileSystemAccess(true).setWebRoot(dir.getAbsolutePath());
+    return dir;
+  }
+
+  private static void writeFile(File file, String content) throws Exception {
+    file.deleteOnExit();
+    Files.write(file.toPath(), content.getBytes());
+  }
+
   // TODO
   // 1.Test all the params including invalid values
   // 2. Make sure exists isn't being called too many times
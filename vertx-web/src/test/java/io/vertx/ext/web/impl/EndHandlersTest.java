@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndHandlersTest {
+
+  @Test
+  public void testCalledBackwards() {
+    List<Integer> called = new ArrayList<>();
+    EndHandlers handlers = new EndHandlers();
+    for (int id = 1; id <= 10; id++) {
+      int value = id;
+      handlers.add(id, v -> called.add(value));
+    }
+    handlers.handle(null);
+    assertEquals(Arrays.asList(10, 9, 8, 7, 6, 5, 4, 3, 2, 1), called);
+  }
+
+  @Test
+  public void testRemove() {
+    List<Integer> called = new ArrayList<>();
+    EndHandlers handlers = new EndHandlers();
+    // the ids are shared with another list so they are not contiguous
+    for (int id = 1; id <= 7; id += 2) {
+      int value = id;
+      handlers.add(id, v -> called.add(value));
+    }
+    assertFalse(handlers.remove(2));
+    assertTrue(handlers.remove(3));
+    assertFalse(handlers.remove(3));
+    assertTrue(handlers.remove(7));
+    // the tombstones are reclaimed, the ids stay valid
+    for (int id = 9; id <= 15; id += 2) {
+      int value = id;
+      handlers.add(id, v -> called.add(value));
+    }
+    assertTrue(handlers.remove(11));
+    assertFalse(handlers.remove(7));
+    handlers.handle(null);
+    assertEquals(Arrays.asList(15, 13, 9, 5, 1), called);
+  }
+
+  @Test
+  public void testRemovedWhileCalled() {
+    List<Integer> called = new ArrayList<>();
+    EndHandlers handlers = new EndHandlers();
+    handlers.add(1, v -> called.add(1));
+    handlers.add(2, v -> called.add(2));
+    handlers.add(3, v -> {
+      called.add(3);
+      handlers.remove(2);
+    });
+    handlers.handle(null);
+    assertEquals(Arrays.asList(3, 1), called);
+  }
+
+  @Test
+  public void testClear() {
+    List<Integer> called = new ArrayList<>();
+    EndHandlers handlers = new EndHandlers();
+    handlers.add(1, v -> called.add(1));
+    handlers.clear();
+    assertFalse(handlers.remove(1));
+    handlers.add(2, v -> called.add(2));
+    handlers.handle(null);
+    assertEquals(Arrays.asList(2), called);
+  }
+}
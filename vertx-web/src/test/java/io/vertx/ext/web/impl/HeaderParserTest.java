@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.ext.web.ParsedHeaderValue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HeaderParserTest {
+
+  // the regular expressions the parser used before it was hand-written, the reference for the parsing behavior
+  private static final Pattern COMMA_SPLITTER = Pattern.compile(",(?=(?:(?<!\\\\)\"(?:(?!(?<!\\\\)\").)*(?<!\\\\)\"|\\\\.|[^\"])*$)");
+  private static final Pattern HYPHEN_SPLITTER = Pattern.compile("-|_");
+  private static final Pattern PARAMETER_FINDER =
+    Pattern.compile("\\s*+;\\s*+(?<key>[a-zA-Z0-9]++)\\s*+" +
+      "(?:=\\s*+(?:(?<value1>[a-zA-Z0-9.@#\\-%_]++)|\"(?<value2>(?:[^\\\\\"]*+(?:\\\\.)?)*+)\"))?+");
+
+  private static final String[] TYPICAL = {
+    "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8",
+    "application/json, text/plain, */*",
+    "en-US,en;q=0.9,fr-FR;q=0.8,fr;q=0.7",
+    "gzip, deflate, br",
+    "text/plain; charset=\"utf-8\"; format=flowed",
+    "text/plain; q = 0.5 ; level=1",
+    "text/*;q=0.3, text/html;q=0.7, text/html;level=1, text/html;level=2;q=0.4, */*;q=0.5",
+    "application/x-test; a=\"b,c\", text/plain",
+    "application/x-test; a=\"b\\\"c\", text/plain",
+    "a;q=abc, b;q=\"0.2\", c;;d, e;=f, ;g",
+    "",
+    ",",
+    " , a,, ",
+  };
+
+  @Test
+  public void testTypicalHeaders() {
+    for (String header : TYPICAL) {
+      assertEquivalent(header);
+    }
+  }
+
+  @Test
+  public void testRandomHeaders() {
+    char[] alphabet = {'a', 'b', 'Z', '0', '1', '.', '/', '*', '-', '_', '@', '%', ';', '=', ',', '"', '\\', 'q',
+      'Q', ' ', '\t', '\n', '\r', '\u2028', 'é'};
+    Random random = new Random(42);
+    for (int i = 0; i < 200000; i++) {
+      char[] chars = new char[random.nextInt(40)];
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = alphabet[random.nextInt(alphabet.length)];
+      }
+      assertEquivalent(new String(chars));
+    }
+  }
+
+  @Test
+  public void testLanguageValue() {
+    assertArrayEquals(new String[]{"en", "US"}, HeaderParser.parseLanguageValue(" en-US "));
+    assertArrayEquals(new String[]{"en", "US"}, HeaderParser.parseLanguageValue("en_US"));
+    assertArrayEquals(new String[]{""}, HeaderParser.parseLanguageValue(""));
+    assertArrayEquals(new String[]{"", "a", ""}, HeaderParser.parseLanguageValue("-a-"));
+    assertArrayEquals(new String[]{"1", "2", "3", "4", "5", "6", "7", "8", "9-10"},
+      HeaderParser.parseLanguageValue("1-2-3-4-5-6-7-8-9-10"));
+  }
+
+  private static void assertEquivalent(String header) {
+    List<String> expected = new ArrayList<>();
+    for (String value : split(header)) {
+      expected.add(value);
+    }
+    List<String> actual = new ArrayList<>();
+    for (ParsedHeaderValue value : HeaderParser.convertToParsedHeaderValues(header, ParsableHeaderValue::new)) {
+      actual.add(value.rawValue());
+    }
+    assertEquals("Splitting " + escape(header), expected, actual);
+    for (String value : expected) {
+      assertEquals("Parsing " + escape(value), parseHeaderValue(value), events(value));
+      assertEquals("Parsing " + escape(value), Arrays.asList(HYPHEN_SPLITTER.split(value.trim(), 9)),
+        Arrays.asList(HeaderParser.parseLanguageValue(value)));
+    }
+  }
+
+  private static List<String> split(String header) {
+    List<String> values = new ArrayList<>();
+    for (String value : COMMA_SPLITTER.split(header)) {
+      values.add(value.trim().replace("\\\"", "\""));
+    }
+    return values;
+  }
+
+  private static List<String> parseHeaderValue(String headerContent) {
+    List<String> events = new ArrayList<>();
+    int paramIndex = headerContent.indexOf(';');
+    if (paramIndex < 0) {
+      events.add("value:" + headerContent);
+    } else {
+      events.add("value:" + headerContent.substring(0, paramIndex));
+      Matcher paramFindings = PARAMETER_FINDER.matcher(headerContent);
+      while (paramFindings.find()) {
+        String key = paramFindings.group("key");
+        String value = paramFindings.group("value1") != null ? paramFindings.group("value1") : paramFindings.group("value2");
+        if ("q".equalsIgnoreCase(key)) {
+          try {
+            if (value != null) {
+              events.add("weight:" + Float.parseFloat(value));
+            }
+          } catch (NumberFormatException ignore) {
+          }
+        } else {
+          events.add("param:" + key + "=" + value);
+        }
+      }
+    }
+    return events;
+  }
+
+  private static List<String> events(String headerContent) {
+    List<String> events = new ArrayList<>();
+    HeaderParser.parseHeaderValue(headerContent,
+      value -> events.add("value:" + value),
+      weight -> events.add("weight:" + weight),
+      (key, value) -> events.add("param:" + key + "=" + value));
+    return events;
+  }
+
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBuckets() {
+    for (long value = 0; value < 100000; value++) {
+      long upperBound = LatencyHistogram.upperBound(LatencyHistogram.bucket(value));
+      assertTrue(value <= upperBound);
+      // at most 1/8th off
+      assertTrue(upperBound - value <= value / 8);
+    }
+    assertTrue(LatencyHistogram.bucket(Long.MAX_VALUE) > LatencyHistogram.bucket(Long.MAX_VALUE / 2));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.percentile(50));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+    assertEquals(1000, histogram.count());
+    assertWithin(500000, histogram.percentile(50));
+    assertWithin(990000, histogram.percentile(99));
+    assertEquals(1000000, histogram.percentile(100));
+    JsonObject json = histogram.toJson();
+    assertEquals(1000, (long) json.getLong("count"));
+    assertEquals(1000, (long) json.getLong("min"));
+    assertEquals(1000000, (long) json.getLong("max"));
+    assertEquals(500500, (long) json.getLong("mean"));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue("Expected ~" + expected + " was " + actual, actual >= expected && actual <= expected + expected / 8);
+  }
+}
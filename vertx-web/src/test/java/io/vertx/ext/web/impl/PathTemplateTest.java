@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathTemplateTest {
+
+  @Test
+  public void testParams() {
+    PathParams params = PathTemplate.compile("/users/:id/orders/:oid").match("/users/42/orders/7");
+    assertNotNull(params);
+    assertEquals(2, params.size());
+    assertEquals("id", params.name(0));
+    assertEquals("42", params.value(0));
+    assertEquals("oid", params.name(1));
+    assertEquals("7", params.value(1));
+  }
+
+  @Test
+  public void testNoMatch() {
+    PathTemplate template = PathTemplate.compile("/users/:id/orders/:oid");
+    assertNull(template.match("/users/42/orders"));
+    assertNull(template.match("/users/42/orders/"));
+    assertNull(template.match("/users//orders/7"));
+    assertNull(template.match("/users/42/orders/7/items"));
+    assertNull(template.match("/customers/42/orders/7"));
+  }
+
+  @Test
+  public void testDecodedOnRead() {
+    PathParams params = PathTemplate.compile("/files/:name").match("/files/a%20b");
+    assertNotNull(params);
+    assertEquals("a b", params.value(0));
+  }
+
+  @Test
+  public void testSeveralParamsInSegment() {
+    // same as the regex, the first parameter takes as much as it can
+    PathParams params = PathTemplate.compile("/files/:name.:ext").match("/files/archive.tar.gz");
+    assertNotNull(params);
+    assertEquals("archive.tar", params.value(0));
+    assertEquals("gz", params.value(1));
+
+    params = PathTemplate.compile("/:a:b").match("/xyz");
+    assertNotNull(params);
+    assertEquals("xy", params.value(0));
+    assertEquals("z", params.value(1));
+
+    assertNull(PathTemplate.compile("/files/:name.:ext").match("/files/archive"));
+  }
+
+  @Test
+  public void testWildcard() {
+    PathTemplate template = PathTemplate.compile("/users/:id/*");
+    PathParams params = template.match("/users/42/orders/7");
+    assertNotNull(params);
+    assertEquals("42", params.value(0));
+    assertNotNull(template.match("/users/42/"));
+    assertNull(template.match("/users/42"));
+  }
+
+  @Test
+  public void testRegexSyntaxNotCompiled() {
+    assertNull(PathTemplate.compile("/users/:id?"));
+    assertNull(PathTemplate.compile("/users/[0-9]+/:id"));
+    assertNull(PathTemplate.compile("/users/*/:id"));
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Route;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RouteIndexTest {
+
+  @Test
+  public void testRegexLiteralPrefix() {
+    assertEquals("/api/v1/", RouteIndex.regexLiteralPrefix("/api/v1/.*"));
+    assertEquals("/api/v1/", RouteIndex.regexLiteralPrefix("\\/api\\/v1\\/.*"));
+    assertEquals("/api/v1/", RouteIndex.regexLiteralPrefix("^/api/v1/[0-9]+"));
+    assertEquals("/files/a.txt", RouteIndex.regexLiteralPrefix("/files/a\\.txt"));
+    assertEquals("/api/v", RouteIndex.regexLiteralPrefix("/api/v(1|2)/foo"));
+    assertEquals("/ap", RouteIndex.regexLiteralPrefix("/api?/foo"));
+    assertEquals("/ap", RouteIndex.regexLiteralPrefix("/api*/foo"));
+    assertEquals("/ap", RouteIndex.regexLiteralPrefix("/api+/foo"));
+    assertEquals("/ap", RouteIndex.regexLiteralPrefix("/api{2}/foo"));
+    assertEquals("/api", RouteIndex.regexLiteralPrefix("/api\\/?"));
+    assertEquals("/", RouteIndex.regexLiteralPrefix("/\\d+"));
+    assertEquals("", RouteIndex.regexLiteralPrefix("(?i)/api"));
+    assertEquals("", RouteIndex.regexLiteralPrefix("/foo|/bar"));
+    assertEquals("", RouteIndex.regexLiteralPrefix("/foo/(a)|/foo/b"));
+    assertEquals("/foo/", RouteIndex.regexLiteralPrefix("/foo/[|]"));
+    assertEquals("", RouteIndex.regexLiteralPrefix(".*"));
+  }
+
+  @Test
+  public void testFailureLookup() {
+    RouterImpl router = new RouterImpl(null);
+    router.route("/foo").handler(rc -> {});
+    router.routeWithRegex("/fo.*").handler(rc -> {});
+    Route failure = router.route("/foo").failureHandler(rc -> {});
+    router.get("/foo/:id").handler(rc -> {});
+    Route anyFailure = router.route().failureHandler(rc -> {});
+    RouteIndex index = router.index();
+    assertEquals(4, index.lookup(HttpMethod.GET, "/foo", null, false).length);
+    RouteState[] failureRoutes = index.lookup(HttpMethod.GET, "/foo", null, true);
+    assertEquals(2, failureRoutes.length);
+    assertSame(failure, failureRoutes[0].route());
+    assertSame(anyFailure, failureRoutes[1].route());
+    // the path is not under the mount point, all the failure routes are candidates
+    assertEquals(2, index.lookup(HttpMethod.GET, "/bar", "/api", true).length);
+  }
+}
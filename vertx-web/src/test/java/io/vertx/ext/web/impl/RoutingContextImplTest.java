@@ -4,14 +4,18 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.*;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.ContextKey;
+import io.vertx.ext.web.Router;
 import io.vertx.ext.web.WebTestBase;
 import io.vertx.ext.web.handler.BodyHandler;
 import org.junit.AfterClass;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.Map;
 
 
 public class RoutingContextImplTest extends WebTestBase {
@@ -99,4 +103,97 @@ public class RoutingContextImplTest extends WebTestBase {
         }, HttpResponseStatus.OK.code(), HttpResponseStatus.OK.reasonPhrase(), null);
     }
 
+    @Test
+    public void test_typed_key_data() throws Exception {
+        ContextKey<Integer> key = ContextKey.create("typed-key");
+        assertSame(key, ContextKey.create("typed-key"));
+        assertSame(key, ContextKey.forSlot(key.slot()));
+        Router subRouter = Router.router(vertx);
+        subRouter.route().handler(event -> {
+            // sub-routers see the data of the parent context
+            assertEquals(1, (int) event.get(key));
+            event.put(key, 2);
+            event.next();
+        });
+        router.route().handler(event -> {
+            event.put(key, 1);
+            event.next();
+        });
+        router.mountSubRouter("/sub", subRouter);
+        router.route().handler(event -> {
+            assertEquals(2, (int) event.get(key));
+            // the value is seen under the name of the key too
+            assertEquals(2, (int) event.get("typed-key"));
+            event.put("typed-key", 3);
+            assertEquals(3, (int) event.get(key));
+            assertEquals(3, (int) event.remove(key));
+            assertNull(event.get("typed-key"));
+            event.response().end();
+        });
+        testRequest(HttpMethod.POST, "/sub", HttpResponseStatus.OK.code(), HttpResponseStatus.OK.reasonPhrase());
+    }
+
+    @Test
+    public void test_typed_key_data_map() throws Exception {
+        ContextKey<String> key = ContextKey.create("typed-key-map");
+        router.route().handler(event -> {
+            event.put(key, "foo");
+            event.put("bar", "baz");
+            Map<String, Object> data = event.data();
+            assertEquals("foo", data.get("typed-key-map"));
+            assertEquals("baz", data.get("bar"));
+            // the map is the data from now on
+            data.put("typed-key-map", "changed");
+            assertEquals("changed", event.get(key));
+            event.put(key, "again");
+            assertEquals("again", data.get("typed-key-map"));
+            event.response().end();
+        });
+        testRequest(HttpMethod.POST, "/", HttpResponseStatus.OK.code(), HttpResponseStatus.OK.reasonPhrase());
+    }
+
+    @Test
+    public void test_null_data_kept() throws Exception {
+        ContextKey<String> key = ContextKey.create("typed-key-null");
+        router.route().handler(event -> {
+            event.put(key, "foo");
+            event.put("typed-key-null", null);
+            event.put("other", null);
+            assertNull(event.get(key));
+            Map<String, Object> data = event.data();
+            assertTrue(data.containsKey("typed-key-null"));
+            assertTrue(data.containsKey("other"));
+            assertNull(data.get("typed-key-null"));
+            event.response().end();
+        });
+        testRequest(HttpMethod.POST, "/", HttpResponseStatus.OK.code(), HttpResponseStatus.OK.reasonPhrase());
+    }
+
+    @Test
+    public void test_body_decoded_once() throws Exception {
+        router.route().handler(event -> {
+            JsonObject json = event.getBodyAsJson();
+            assertEquals("b\u00e4r", json.getString("foo"));
+            assertSame(json, event.getBodyAsJson());
+            String body = event.getBodyAsString();
+            assertSame(body, event.getBodyAsString());
+            // a new body is decoded again
+            event.setBody(Buffer.buffer("[1, 2]"));
+            assertEquals(new JsonArray().add(1).add(2), event.getBodyAsJsonArray());
+            assertEquals("[1, 2]", event.getBodyAsString());
+            try {
+                event.getBodyAsJson();
+                fail();
+            } catch (DecodeException expected) {
+            }
+            event.setBody(null);
+            assertNull(event.getBodyAsJsonArray());
+            event.response().end();
+        });
+        testRequest(HttpMethod.POST, "/", req -> {
+            req.setChunked(true);
+            req.write(Buffer.buffer("{ \"foo\": \"b\u00e4r\" }", "UTF-8"));
+        }, HttpResponseStatus.OK.code(), HttpResponseStatus.OK.reasonPhrase(), null);
+    }
+
 }